@@ -11,6 +11,10 @@
 PROMPT Dropping existing tables and sequences...
 BEGIN EXECUTE IMMEDIATE 'DROP TABLE Review_Likes'; EXCEPTION WHEN OTHERS THEN NULL; END;
 /
+BEGIN EXECUTE IMMEDIATE 'DROP TABLE Movie_Genres'; EXCEPTION WHEN OTHERS THEN NULL; END;
+/
+BEGIN EXECUTE IMMEDIATE 'DROP TABLE Genres'; EXCEPTION WHEN OTHERS THEN NULL; END;
+/
 BEGIN EXECUTE IMMEDIATE 'DROP TABLE Watchlist'; EXCEPTION WHEN OTHERS THEN NULL; END;
 /
 BEGIN EXECUTE IMMEDIATE 'DROP TABLE Reviews'; EXCEPTION WHEN OTHERS THEN NULL; END;
@@ -29,14 +33,18 @@ BEGIN EXECUTE IMMEDIATE 'DROP SEQUENCE movie_id_seq'; EXCEPTION WHEN OTHERS THEN
 /
 BEGIN EXECUTE IMMEDIATE 'DROP SEQUENCE user_id_seq'; EXCEPTION WHEN OTHERS THEN NULL; END;
 /
+BEGIN EXECUTE IMMEDIATE 'DROP SEQUENCE genre_id_seq'; EXCEPTION WHEN OTHERS THEN NULL; END;
+/
 
 -- Step 2: Recreate all sequences for auto-incrementing primary keys.
 PROMPT Creating sequences...
 CREATE SEQUENCE user_id_seq START WITH 1 INCREMENT BY 1;
-CREATE SEQUENCE movie_id_seq START WITH 1 INCREMENT BY 1;
+-- CACHE: imports draw thousands of ids per run (MovieIdAllocator takes whole blocks at once).
+CREATE SEQUENCE movie_id_seq START WITH 1 INCREMENT BY 1 CACHE 1000;
 CREATE SEQUENCE review_id_seq START WITH 1 INCREMENT BY 1;
 CREATE SEQUENCE watchlist_id_seq START WITH 1 INCREMENT BY 1;
 CREATE SEQUENCE like_id_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE genre_id_seq START WITH 1 INCREMENT BY 1;
 
 -- Step 3: Recreate all tables with the final, correct schema and constraints.
 
@@ -67,9 +75,37 @@ CREATE TABLE Movies (
     episodes NUMBER,
     status VARCHAR2(50),
     studios VARCHAR2(255),
-    producers VARCHAR2(1000)
+    producers VARCHAR2(1000),
+    -- Where an importer got the title from ("anime:<id>", "movie:<title>:<year>") and a hash of what it
+    -- wrote, so re-imports update changed rows and skip unchanged ones. Null for titles added in the app.
+    source_key VARCHAR2(300) CONSTRAINT uq_movies_source_key UNIQUE,
+    content_hash VARCHAR2(64),
+    -- Rating aggregates, maintained by the app on every review insert/update/delete.
+    -- Recompute with RatingAggregateRepair if they ever drift.
+    review_count NUMBER DEFAULT 0 NOT NULL,
+    rating_sum NUMBER(12,1) DEFAULT 0 NOT NULL
+);
+
+-- Genres Table (dictionary of genre names)
+PROMPT Creating table: Genres...
+CREATE TABLE Genres (
+    genre_id NUMBER PRIMARY KEY,
+    name VARCHAR2(50) NOT NULL,
+    CONSTRAINT uq_genre_name UNIQUE (name)
 );
 
+-- Movie_Genres Table (normalized form of Movies.genres; the importers fill it)
+PROMPT Creating table: Movie_Genres...
+CREATE TABLE Movie_Genres (
+    movie_id NUMBER NOT NULL,
+    genre_id NUMBER NOT NULL,
+    CONSTRAINT pk_movie_genres PRIMARY KEY (movie_id, genre_id),
+    CONSTRAINT fk_movie_genres_movie FOREIGN KEY (movie_id) REFERENCES Movies(movie_id) ON DELETE CASCADE,
+    CONSTRAINT fk_movie_genres_genre FOREIGN KEY (genre_id) REFERENCES Genres(genre_id) ON DELETE CASCADE
+);
+-- The genre filter goes genre -> movies, so it needs the reverse order of the primary key.
+CREATE INDEX idx_movie_genres_genre ON Movie_Genres (genre_id, movie_id);
+
 -- Reviews Table
 PROMPT Creating table: Reviews...
 CREATE TABLE Reviews (
@@ -79,6 +115,7 @@ CREATE TABLE Reviews (
     rating NUMBER(2,1) NOT NULL,
     review_text VARCHAR2(4000),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    like_count NUMBER DEFAULT 0 NOT NULL,  -- maintained with every Review_Likes insert/delete
     CONSTRAINT fk_reviews_movie FOREIGN KEY (movie_id) REFERENCES Movies(movie_id) ON DELETE CASCADE,
     CONSTRAINT fk_reviews_user FOREIGN KEY (user_id) REFERENCES Users(user_id) ON DELETE CASCADE
 );
@@ -105,7 +142,24 @@ CREATE TABLE Review_Likes (
     CONSTRAINT uq_user_review_like UNIQUE (user_id, review_id)
 );
 
--- Step 4: Commit all changes to the database.
+-- Step 4: Secondary indexes for the application's hot queries.
+-- QueryPlanCheck fails if any of those queries stops using them, so keep the two in sync.
+PROMPT Creating indexes...
+-- Catalog listing: WHERE media_type = ? ORDER BY title, movie_id, keyset-paginated.
+CREATE INDEX idx_movies_type_title ON Movies (media_type, title, movie_id);
+-- Case-insensitive title search fallback (UPPER(title) LIKE ...); the trailing columns let it filter inside the index.
+CREATE INDEX idx_movies_type_upper_title ON Movies (media_type, UPPER(title), title, movie_id);
+-- Reviews of a title (MovieDetailsDialog), in the review list's keyset order.
+CREATE INDEX idx_reviews_movie_likes ON Reviews (movie_id, like_count, created_at, review_id);
+-- Reviews of a user (ProfileDialog), newest first; also the "has this user reviewed it" check.
+CREATE INDEX idx_reviews_user ON Reviews (user_id, created_at);
+-- Like counts per review. (user_id, review_id) is already covered by uq_user_review_like.
+CREATE INDEX idx_review_likes_review ON Review_Likes (review_id, user_id);
+-- Watchlist by user is covered by uq_user_movie_watchlist (user_id, movie_id); this one keeps
+-- ON DELETE CASCADE from Movies from scanning the whole table.
+CREATE INDEX idx_watchlist_movie ON Watchlist (movie_id);
+
+-- Step 5: Commit all changes to the database.
 PROMPT Committing changes...
 COMMIT;
 
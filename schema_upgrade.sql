@@ -0,0 +1,79 @@
+-- =============================================================================
+-- FilmFolio Schema Upgrade Script
+-- =============================================================================
+-- Brings an existing database up to the current schema WITHOUT dropping data.
+-- Fresh installs should use master_setup.sql instead.
+-- Each step is safe to re-run ("column already exists" errors are ignored).
+-- =============================================================================
+
+-- Rating aggregates on Movies (replaces the per-row AVG over Reviews).
+PROMPT Adding rating aggregate columns to Movies...
+BEGIN EXECUTE IMMEDIATE 'ALTER TABLE Movies ADD (review_count NUMBER DEFAULT 0 NOT NULL, rating_sum NUMBER(12,1) DEFAULT 0 NOT NULL)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -1430 THEN RAISE; END IF; END;
+/
+
+PROMPT Computing rating aggregates from existing reviews...
+MERGE INTO Movies m USING (
+    SELECT movie_id, COUNT(*) AS review_count, SUM(rating) AS rating_sum FROM Reviews GROUP BY movie_id
+) agg ON (m.movie_id = agg.movie_id)
+WHEN MATCHED THEN UPDATE SET m.review_count = agg.review_count, m.rating_sum = agg.rating_sum;
+
+-- Like counts on Reviews (replaces the per-row COUNT over Review_Likes).
+PROMPT Adding like_count to Reviews...
+BEGIN EXECUTE IMMEDIATE 'ALTER TABLE Reviews ADD (like_count NUMBER DEFAULT 0 NOT NULL)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -1430 THEN RAISE; END IF; END;
+/
+
+PROMPT Computing like counts from existing likes...
+MERGE INTO Reviews r USING (
+    SELECT review_id, COUNT(*) AS like_count FROM Review_Likes GROUP BY review_id
+) agg ON (r.review_id = agg.review_id)
+WHEN MATCHED THEN UPDATE SET r.like_count = agg.like_count;
+
+-- Import keys on Movies. Titles imported before this have none; the next import run adopts each
+-- one by media_type, title and release year instead of inserting it again.
+PROMPT Adding import keys to Movies...
+BEGIN EXECUTE IMMEDIATE 'ALTER TABLE Movies ADD (source_key VARCHAR2(300), content_hash VARCHAR2(64))'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -1430 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'ALTER TABLE Movies ADD CONSTRAINT uq_movies_source_key UNIQUE (source_key)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE NOT IN (-2261, -2264) THEN RAISE; END IF; END;
+/
+
+PROMPT Caching movie_id_seq...
+ALTER SEQUENCE movie_id_seq CACHE 1000;
+
+-- Normalized genres. Afterwards run GenreMigration once to fill them from Movies.genres.
+PROMPT Creating genre tables...
+BEGIN EXECUTE IMMEDIATE 'CREATE SEQUENCE genre_id_seq START WITH 1 INCREMENT BY 1'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'CREATE TABLE Genres (genre_id NUMBER PRIMARY KEY, name VARCHAR2(50) NOT NULL, CONSTRAINT uq_genre_name UNIQUE (name))'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'CREATE TABLE Movie_Genres (movie_id NUMBER NOT NULL, genre_id NUMBER NOT NULL, ' ||
+    'CONSTRAINT pk_movie_genres PRIMARY KEY (movie_id, genre_id), ' ||
+    'CONSTRAINT fk_movie_genres_movie FOREIGN KEY (movie_id) REFERENCES Movies(movie_id) ON DELETE CASCADE, ' ||
+    'CONSTRAINT fk_movie_genres_genre FOREIGN KEY (genre_id) REFERENCES Genres(genre_id) ON DELETE CASCADE)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'CREATE INDEX idx_movie_genres_genre ON Movie_Genres (genre_id, movie_id)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+
+-- Secondary indexes for the hot queries (see master_setup.sql, Step 4).
+PROMPT Creating indexes...
+BEGIN EXECUTE IMMEDIATE 'CREATE INDEX idx_movies_type_title ON Movies (media_type, title, movie_id)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'CREATE INDEX idx_movies_type_upper_title ON Movies (media_type, UPPER(title), title, movie_id)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'CREATE INDEX idx_reviews_movie_likes ON Reviews (movie_id, like_count, created_at, review_id)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+-- Superseded by idx_reviews_movie_likes ("index does not exist" is ignored).
+BEGIN EXECUTE IMMEDIATE 'DROP INDEX idx_reviews_movie'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -1418 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'CREATE INDEX idx_reviews_user ON Reviews (user_id, created_at)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'CREATE INDEX idx_review_likes_review ON Review_Likes (review_id, user_id)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+BEGIN EXECUTE IMMEDIATE 'CREATE INDEX idx_watchlist_movie ON Watchlist (movie_id)'; EXCEPTION WHEN OTHERS THEN IF SQLCODE != -955 THEN RAISE; END IF; END;
+/
+
+PROMPT Committing changes...
+COMMIT;
+
+PROMPT =====================================================
+PROMPT Schema upgrade is complete.
+PROMPT =====================================================
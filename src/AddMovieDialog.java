@@ -1,8 +1,5 @@
 import javax.swing.*;
 import java.awt.*;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
 
 public class AddMovieDialog extends JDialog {
 
@@ -11,11 +8,13 @@ public class AddMovieDialog extends JDialog {
     private JTextField directorField;
     // --- NEW: Text field for the poster URL ---
     private JTextField posterLinkField;
+    private JComboBox<String> mediaTypeComboBox;
+    private JTextField genresField;
     private boolean movieAdded = false;
 
     public AddMovieDialog(Frame parent) {
         super(parent, "Add a New Movie", true);
-        setSize(450, 250); // Made slightly taller to fit the new field
+        setSize(450, 320); // Made taller to fit the type and genres fields
         setLocationRelativeTo(parent);
         setLayout(new BorderLayout(10, 10));
 
@@ -41,6 +40,14 @@ public class AddMovieDialog extends JDialog {
         cs.gridx = 0; cs.gridy = 3; cs.gridwidth = 1; formPanel.add(new JLabel("Poster URL:"), cs);
         cs.gridx = 1; cs.gridy = 3; cs.gridwidth = 2; posterLinkField = new JTextField(20); formPanel.add(posterLinkField, cs);
 
+        // Media type (Movies.media_type is NOT NULL)
+        cs.gridx = 0; cs.gridy = 4; cs.gridwidth = 1; formPanel.add(new JLabel("Type:"), cs);
+        cs.gridx = 1; cs.gridy = 4; cs.gridwidth = 2; mediaTypeComboBox = new JComboBox<>(new String[]{"Movie", "Anime"}); formPanel.add(mediaTypeComboBox, cs);
+
+        // Genres, comma-separated like the imported data (e.g. "Crime, Drama")
+        cs.gridx = 0; cs.gridy = 5; cs.gridwidth = 1; formPanel.add(new JLabel("Genres:"), cs);
+        cs.gridx = 1; cs.gridy = 5; cs.gridwidth = 2; genresField = new JTextField(20); formPanel.add(genresField, cs);
+
         // Buttons
         JButton submitButton = new JButton("Submit");
         JButton cancelButton = new JButton("Cancel");
@@ -63,6 +70,8 @@ public class AddMovieDialog extends JDialog {
         String director = directorField.getText().trim();
         // --- NEW: Get the poster link from the new field ---
         String posterLink = posterLinkField.getText().trim();
+        String mediaType = "Anime".equals(mediaTypeComboBox.getSelectedItem()) ? "anime" : "movie";
+        String genres = genresField.getText().trim();
 
         // --- Input Validation ---
         if (title.isEmpty() || yearStr.isEmpty() || director.isEmpty()) {
@@ -78,27 +87,19 @@ public class AddMovieDialog extends JDialog {
             return;
         }
 
-        // --- MODIFIED: The SQL now includes the poster_link column ---
-        String sql = "INSERT INTO Movies (movie_id, title, release_year, director, poster_link) VALUES (movie_id_seq.NEXTVAL, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, title);
-            pstmt.setInt(2, year);
-            pstmt.setString(3, director);
-            // --- NEW: Set the value for the poster link parameter ---
-            pstmt.setString(4, posterLink.isEmpty() ? null : posterLink); // Save null if the field is empty
-
-            pstmt.executeUpdate();
-
+        String posterValue = posterLink.isEmpty() ? null : posterLink; // Save null if the field is empty
+        String genresValue = genres.isEmpty() ? null : genres;
+        DataAccess.run(() -> MovieRepository.insert(title, year, director, posterValue, mediaType, genresValue)).whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                Throwable ex = DataAccess.unwrap(error);
+                JOptionPane.showMessageDialog(this, "Database error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                ex.printStackTrace();
+                return;
+            }
             JOptionPane.showMessageDialog(this, "Media added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
             movieAdded = true;
             dispose();
-
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Database error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        }
+        }, DataAccess.EDT);
     }
 
     public boolean isMovieAdded() {
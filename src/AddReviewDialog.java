@@ -1,9 +1,5 @@
 import javax.swing.*;
 import java.awt.*;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 
 public class AddReviewDialog extends JDialog {
 
@@ -14,6 +10,7 @@ public class AddReviewDialog extends JDialog {
 
     private JComboBox<Double> ratingComboBox;
     private JTextArea reviewTextArea;
+    private JButton submitButton;
 
     // --- CONSTRUCTOR FOR ADDING A NEW REVIEW ---
     public AddReviewDialog(Dialog parent, int movieId, int userId) {
@@ -55,7 +52,7 @@ public class AddReviewDialog extends JDialog {
         reviewTextArea.setLineWrap(true);
         JScrollPane scrollPane = new JScrollPane(reviewTextArea);
 
-        JButton submitButton = new JButton("Submit");
+        submitButton = new JButton("Submit");
         JButton cancelButton = new JButton("Cancel");
         JPanel buttonPanel = new JPanel();
         buttonPanel.add(submitButton);
@@ -89,54 +86,39 @@ public class AddReviewDialog extends JDialog {
     }
     
     private void insertNewReview(double rating, String reviewText) {
-        String checkSql = "SELECT 1 FROM Reviews WHERE user_id = ? AND movie_id = ?";
-        String insertSql = "INSERT INTO Reviews (review_id, rating, review_text, user_id, movie_id) VALUES (review_id_seq.NEXTVAL, ?, ?, ?, ?)";
-        
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setInt(1, this.userId);
-                checkStmt.setInt(2, this.movieId);
-                if (checkStmt.executeQuery().next()) {
-                    JOptionPane.showMessageDialog(this, "You have already reviewed this movie.", "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+        submitButton.setEnabled(false);
+        DataAccess.supply(() -> {
+            if (ReviewRepository.hasReviewed(this.userId, this.movieId)) {
+                return false;
             }
-            
-            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-                insertStmt.setDouble(1, rating);
-                insertStmt.setString(2, reviewText);
-                insertStmt.setInt(3, this.userId);
-                insertStmt.setInt(4, this.movieId);
-                insertStmt.executeUpdate();
-                
+            ReviewRepository.insert(this.movieId, this.userId, rating, reviewText);
+            return true;
+        }).whenCompleteAsync((inserted, error) -> {
+            submitButton.setEnabled(true);
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, "Database error: " + DataAccess.unwrap(error).getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (!inserted) {
+                JOptionPane.showMessageDialog(this, "You have already reviewed this movie.", "Error", JOptionPane.ERROR_MESSAGE);
+            } else {
                 JOptionPane.showMessageDialog(this, "Review submitted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
                 reviewSubmitted = true;
                 dispose();
             }
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Database error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, DataAccess.EDT);
     }
     
     private void updateExistingReview(double rating, String reviewText) {
-        String sql = "UPDATE Reviews SET rating = ?, review_text = ? WHERE review_id = ?";
-        
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-             
-            pstmt.setDouble(1, rating);
-            pstmt.setString(2, reviewText);
-            pstmt.setInt(3, this.reviewId);
-            
-            pstmt.executeUpdate();
-            
+        submitButton.setEnabled(false);
+        DataAccess.run(() -> ReviewRepository.update(this.reviewId, rating, reviewText)).whenCompleteAsync((ignored, error) -> {
+            submitButton.setEnabled(true);
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, "Database error: " + DataAccess.unwrap(error).getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "Review updated successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
             reviewSubmitted = true;
             dispose();
-
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Database error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, DataAccess.EDT);
     }
 
     public boolean isReviewSubmitted() {
@@ -1,9 +1,6 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Arrays;
 
 public class AnimeImporter {
 
@@ -13,6 +10,7 @@ public class AnimeImporter {
         // --- UPDATED: Define ALL necessary column indexes based on your header ---
         // id,name,genres,type,episodes,status,aired_from,aired_to,duration_per_ep,score,
         // scored_by,rank,rating,studios,producers,image,trailer,synopsis
+        int COL_ID = 0;              // For source_key
         int COL_NAME = 1;
         int COL_GENRES = 2;
         int COL_EPISODES = 4;
@@ -26,90 +24,72 @@ public class AnimeImporter {
         int COL_IMAGE = 15;
         int COL_SYNOPSIS = 17;
 
-        // --- UPDATED: SQL Query now includes ALL new columns for anime ---
-        String sql = "INSERT INTO Movies (movie_id, title, release_year, director, poster_link, media_type, genres, synopsis, runtime, age_rating, external_score, episodes, status, studios, producers) VALUES (movie_id_seq.NEXTVAL, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        int itemsImported = 0;
-        int linesSkipped = 0;
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             BufferedReader lineReader = new BufferedReader(new FileReader(csvFilePath))) {
-
-            conn.setAutoCommit(false);
-            lineReader.readLine(); // Skip header
+        // --- NEW: re-runs only write new and changed rows; --full rewrites every row, and --bulk
+        // direct-path loads new ones (for full catalog rebuilds) ---
+        boolean full = Arrays.asList(args).contains("--full");
+        boolean bulk = Arrays.asList(args).contains("--bulk");
 
+        // --- UPDATED: a reader, parser workers and writer threads (each with its own connection) run as a
+        // pipeline; see ImportPipeline and the import.* settings in db.properties ---
+        try {
             System.out.println("🚀 Starting ANIME import process with FULL details...");
 
-            String lineText;
-            while ((lineText = lineReader.readLine()) != null) {
-                String[] data = lineText.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-                try {
-                    // Skip rows that don't have enough columns
-                    if (data.length <= COL_SYNOPSIS) {
-                        linesSkipped++;
-                        continue;
-                    }
-                    
-                    // --- UPDATED: Read data from ALL relevant columns ---
-                    String title = data[COL_NAME].trim().replaceAll("^\"|\"$", "");
-                    String airedFrom = data[COL_AIRED_FROM].trim().replaceAll("^\"|\"$", "");
-                    String posterLink = data[COL_IMAGE].trim().replaceAll("^\"|\"$", "");
-                    String genres = data[COL_GENRES].trim().replaceAll("^\"|\"$", "");
-                    String episodesStr = data[COL_EPISODES].trim().replaceAll("^\"|\"$", "");
-                    String status = data[COL_STATUS].trim().replaceAll("^\"|\"$", "");
-                    String runtime = data[COL_DURATION].trim().replaceAll("^\"|\"$", "");
-                    String scoreStr = data[COL_SCORE].trim().replaceAll("^\"|\"$", "");
-                    String ageRating = data[COL_RATING].trim().replaceAll("^\"|\"$", "");
-                    String studios = data[COL_STUDIOS].trim().replaceAll("^\"|\"$", "");
-                    String producers = data[COL_PRODUCERS].trim().replaceAll("^\"|\"$", "");
-                    String synopsis = data[COL_SYNOPSIS].trim().replaceAll("^\"|\"$", "");
-
-                    // Extract year and skip if invalid
-                    int year;
-                    if (airedFrom.length() >= 4 && airedFrom.substring(0, 4).matches("\\d{4}")) {
-                        year = Integer.parseInt(airedFrom.substring(0, 4));
-                    } else {
-                        linesSkipped++;
-                        continue;
-                    }
-
-                    // Handle potentially non-numeric or "Unknown" data
-                    int episodes = (episodesStr.isEmpty() || !episodesStr.matches("\\d+")) ? 0 : Integer.parseInt(episodesStr);
-                    double externalScore = (scoreStr.isEmpty() || scoreStr.equalsIgnoreCase("UNKNOWN")) ? 0.0 : Double.parseDouble(scoreStr);
+            ImportPipeline.Result result = new ImportPipeline(DatabaseConnector.loadConfig(), full, bulk).run(csvFilePath, fields -> {
+                // Skip rows that don't have enough columns
+                if (fields.length <= COL_SYNOPSIS) {
+                    throw new ImportPipeline.Rejected(null, "Only " + fields.length + " columns", null);
+                }
 
-                    // --- UPDATED: Set ALL parameters for the INSERT statement ---
-                    pstmt.setString(1, title);
-                    pstmt.setInt(2, year);
-                    pstmt.setString(3, "N/A"); // Director placeholder
-                    pstmt.setString(4, posterLink);
-                    pstmt.setString(5, "anime"); // media_type
-                    pstmt.setString(6, genres);
-                    pstmt.setString(7, synopsis);
-                    pstmt.setString(8, runtime);
-                    pstmt.setString(9, ageRating);
-                    pstmt.setDouble(10, externalScore);
-                    pstmt.setInt(11, episodes);
-                    pstmt.setString(12, status);
-                    pstmt.setString(13, studios);
-                    pstmt.setString(14, producers);
+                // --- UPDATED: Read data from ALL relevant columns ---
+                String title = fields[COL_NAME].trim();
+                String airedFrom = fields[COL_AIRED_FROM].trim();
+                String posterLink = fields[COL_IMAGE].trim();
+                String genres = fields[COL_GENRES].trim();
+                String episodesStr = fields[COL_EPISODES].trim();
+                String status = fields[COL_STATUS].trim();
+                String runtime = fields[COL_DURATION].trim();
+                String scoreStr = fields[COL_SCORE].trim();
+                String ageRating = fields[COL_RATING].trim();
+                String studios = fields[COL_STUDIOS].trim();
+                String producers = fields[COL_PRODUCERS].trim();
+                String synopsis = fields[COL_SYNOPSIS].trim();
+
+                // Extract year and skip if invalid
+                if (airedFrom.length() < 4 || !airedFrom.substring(0, 4).matches("\\d{4}")) {
+                    throw new ImportPipeline.Rejected("aired_from", "Invalid aired_from: " + airedFrom, title);
+                }
+                int year = Integer.parseInt(airedFrom.substring(0, 4));
 
-                    pstmt.addBatch();
-                    itemsImported++;
+                // Handle potentially non-numeric or "Unknown" data
+                int episodes = (episodesStr.isEmpty() || !episodesStr.matches("\\d+")) ? 0 : Integer.parseInt(episodesStr);
+                double externalScore;
+                try {
+                    externalScore = (scoreStr.isEmpty() || scoreStr.equalsIgnoreCase("UNKNOWN")) ? 0.0 : Double.parseDouble(scoreStr);
+                } catch (NumberFormatException e) {
+                    throw new ImportPipeline.Rejected("score", "Invalid score: " + scoreStr, title);
+                }
 
-                } catch (Exception e) {
-                    System.err.println("Skipping line due to parsing error: " + lineText + " | Error: " + e.getMessage());
-                    linesSkipped++;
+                String sourceId = fields[COL_ID].trim();
+                if (sourceId.isEmpty()) {
+                    throw new ImportPipeline.Rejected("id", "Missing id", title);
                 }
+                String sourceKey = "anime:" + sourceId;
+                return new MovieRecord(sourceKey, title, year, "N/A", posterLink, "anime", genres, synopsis,
+                        runtime, ageRating, externalScore, episodes, status, studios, producers);
+            });
+
+            System.out.println("Linking genres...");
+            GenreCatalog.Counts genreLinks = DatabaseConnector.inTransaction(GenreRepository::linkUnlinkedMovies);
+            if (result.written() > 0) {
+                GenreCatalog.rebuild(); // updated titles were relinked too, so recount instead of adding
             }
 
-            System.out.println("Executing batch insert... Please wait.");
-            pstmt.executeBatch();
-            conn.commit();
-
             System.out.println("\n✅ Anime import complete!");
-            System.out.println("Total anime imported: " + itemsImported);
-            System.out.println("Total lines skipped: " + linesSkipped);
+            System.out.println("Total anime written (new or changed): " + result.written());
+            System.out.println("Unchanged since the last import: " + result.unchanged());
+            System.out.println("Duplicates skipped: " + result.duplicates());
+            System.out.println("Total lines skipped: " + result.rejected());
+            System.out.println("Genre links created: " + genreLinks.total());
 
         } catch (IOException e) {
             System.err.println("Error reading the file: " + e.getMessage());
@@ -0,0 +1,73 @@
+/**
+ * A fixed-size Bloom filter of strings. It never misses a string that was put; it wrongly
+ * reports one that wasn't at roughly the false positive rate it was sized for, as long as no more
+ * than expectedKeys strings are put (about 10 bits per key at 1%). Not thread-safe.
+ */
+public final class BloomFilter {
+
+    private static final int MAX_HASHES = 16;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long keys = Math.max(1, expectedKeys);
+        double rate = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        double optimalBits = -keys * Math.log(rate) / (Math.log(2) * Math.log(2));
+        this.bits = new long[(int) Math.min((long) Math.ceil(optimalBits / 64), Integer.MAX_VALUE - 8)];
+        this.bitCount = bits.length * 64L;
+        this.hashCount = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bitCount / keys * Math.log(2))));
+    }
+
+    /** Adds key. Returns false if it may have been put before, i.e. all of its bits were already set. */
+    public boolean put(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long sizeInBytes() {
+        return bits.length * 8L;
+    }
+
+    // FNV-1a over the chars, then MurmurHash3's finalizer so every output bit depends on every input bit.
+    // The k bit positions are h1 + i * h2 (Kirsch and Mitzenmacher), which is as good as k hash functions.
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
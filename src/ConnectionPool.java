@@ -0,0 +1,626 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small bounded JDBC connection pool.
+ *
+ * Connections handed out by {@link #borrow()} are proxies: calling close() on them
+ * returns the physical connection to the pool instead of closing it, so the usual
+ * try-with-resources blocks in the dialogs keep working unchanged.
+ *
+ * Each physical connection also keeps an LRU cache of its prepared statements, keyed by
+ * SQL text. Preparing the same SQL again on that connection reuses the parsed statement,
+ * and closing it only clears its parameters.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long validationIntervalMs;
+    private final int validationTimeoutSec;
+    private final long leakThresholdMs;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // Most recently returned connections sit at the head, so the tail holds the ones idle the longest.
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> active = new LinkedHashSet<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private int totalCount;  // idle + active + connections currently being opened
+    private int waiters;
+    private boolean shutdown;
+
+    // --- Statistics (guarded by lock) ---
+    private long borrowCount;
+    private long totalBorrowNanos;
+    private long maxBorrowNanos;
+    private long timeoutCount;
+    private long leakCount;
+    private long createdCount;
+    private long destroyedCount;
+    // Statement cache counters are bumped by borrowers without holding the pool lock.
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    public ConnectionPool(Properties config) {
+        this.url = config.getProperty("db.url", "jdbc:oracle:thin:@localhost:1521/XE");
+        this.user = config.getProperty("db.user", "system");
+        this.password = config.getProperty("db.password", "");
+        this.maxSize = Math.max(1, DatabaseConnector.intProperty(config, "pool.maxSize", 8));
+        this.minSize = Math.min(maxSize, Math.max(0, DatabaseConnector.intProperty(config, "pool.minSize", 1)));
+        this.borrowTimeoutMs = DatabaseConnector.longProperty(config, "pool.borrowTimeoutMs", 10_000);
+        this.idleTimeoutMs = DatabaseConnector.longProperty(config, "pool.idleTimeoutMs", 300_000);
+        this.validationIntervalMs = DatabaseConnector.longProperty(config, "pool.validationIntervalMs", 30_000);
+        this.validationTimeoutSec = DatabaseConnector.intProperty(config, "pool.validationTimeoutSec", 2);
+        this.leakThresholdMs = DatabaseConnector.longProperty(config, "pool.leakDetectionThresholdMs", 60_000);
+        this.statementCacheSize = Math.max(0, DatabaseConnector.intProperty(config, "pool.statementCacheSize", 32));
+        long housekeepingMs = Math.max(1_000, DatabaseConnector.longProperty(config, "pool.housekeepingIntervalMs", 30_000));
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingMs, housekeepingMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to pool.borrowTimeoutMs when every connection is in use.
+     * Closing the returned connection hands it back to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        return borrow(false);
+    }
+
+    /**
+     * Like borrow(), for a caller that holds the connection on purpose for longer than
+     * pool.leakDetectionThresholdMs (e.g. an import writer), so it is never reported as a leak.
+     */
+    public Connection borrowLongLived() throws SQLException {
+        return borrow(true);
+    }
+
+    private Connection borrow(boolean longLived) throws SQLException {
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMs);
+
+        while (true) {
+            PooledConnection candidate;
+            lock.lock();
+            try {
+                if (shutdown) {
+                    throw new SQLException("Connection pool has been shut down.");
+                }
+                while (idle.isEmpty() && totalCount >= maxSize) {
+                    if (remaining <= 0) {
+                        timeoutCount++;
+                        throw new SQLTimeoutException("Timed out after " + borrowTimeoutMs + " ms waiting for a database connection ("
+                                + active.size() + " in use, max " + maxSize + ").");
+                    }
+                    waiters++;
+                    try {
+                        remaining = available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection.", e);
+                    } finally {
+                        waiters--;
+                    }
+                    if (shutdown) {
+                        throw new SQLException("Connection pool has been shut down.");
+                    }
+                }
+                candidate = idle.pollFirst();
+                if (candidate == null) {
+                    totalCount++; // reserve a slot before opening outside the lock
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (candidate == null) {
+                candidate = openReserved();
+            } else if (needsValidation(candidate) && !candidate.isValid(validationTimeoutSec)) {
+                destroy(candidate);
+                continue;
+            }
+            return activate(candidate, start, longLived);
+        }
+    }
+
+    /** Returns a snapshot of the pool counters, used for sizing the pool. */
+    public Stats getStats() {
+        lock.lock();
+        try {
+            double avgBorrowMs = borrowCount == 0 ? 0.0 : totalBorrowNanos / (double) borrowCount / 1_000_000.0;
+            return new Stats(active.size(), idle.size(), totalCount, waiters, maxSize,
+                    borrowCount, avgBorrowMs, maxBorrowNanos / 1_000_000.0,
+                    timeoutCount, leakCount, createdCount, destroyedCount,
+                    statementCacheHits.sum(), statementCacheMisses.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Closes all idle connections; connections still in use are closed as they come back. */
+    public void shutdown() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (shutdown) return;
+            shutdown = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            totalCount -= toClose.size();
+            destroyedCount += toClose.size();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            pc.closeQuietly();
+        }
+    }
+
+    // --- Internals ---
+
+    private PooledConnection openReserved() throws SQLException {
+        try {
+            PooledConnection pc = new PooledConnection(DriverManager.getConnection(url, user, password), statementCacheSize);
+            lock.lock();
+            try {
+                createdCount++;
+            } finally {
+                lock.unlock();
+            }
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                totalCount--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean needsValidation(PooledConnection pc) {
+        return System.currentTimeMillis() - pc.lastReturnedAt >= validationIntervalMs;
+    }
+
+    private Connection activate(PooledConnection pc, long borrowStartNanos, boolean longLived) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            active.add(pc);
+            pc.borrowedAt = System.currentTimeMillis();
+            boolean watched = leakThresholdMs > 0 && !longLived;
+            pc.borrowSite = watched ? new Throwable("Connection borrowed by " + Thread.currentThread().getName()) : null;
+            pc.leakReported = !watched;
+            pc.broken = false;
+            long waited = now - borrowStartNanos;
+            borrowCount++;
+            totalBorrowNanos += waited;
+            maxBorrowNanos = Math.max(maxBorrowNanos, waited);
+        } finally {
+            lock.unlock();
+        }
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandle(pc));
+    }
+
+    private void release(PooledConnection pc) {
+        if (pc.broken || !pc.resetForReuse()) {
+            destroy(pc);
+            return;
+        }
+        boolean closeNow = false;
+        lock.lock();
+        try {
+            active.remove(pc);
+            pc.borrowSite = null;
+            pc.lastReturnedAt = System.currentTimeMillis();
+            if (shutdown) {
+                totalCount--;
+                destroyedCount++;
+                closeNow = true;
+            } else {
+                idle.addFirst(pc);
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (closeNow) {
+            pc.closeQuietly();
+        }
+    }
+
+    private void destroy(PooledConnection pc) {
+        lock.lock();
+        try {
+            active.remove(pc);
+            idle.remove(pc);
+            totalCount--;
+            destroyedCount++;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        pc.closeQuietly();
+    }
+
+    private void housekeep() {
+        List<PooledConnection> evicted = new ArrayList<>();
+        int missing;
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (shutdown) return;
+            // Evict from the tail (longest idle) while we stay above the minimum size.
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalCount > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastReturnedAt < idleTimeoutMs) break;
+                it.remove();
+                totalCount--;
+                destroyedCount++;
+                evicted.add(pc);
+            }
+            if (leakThresholdMs > 0) {
+                for (PooledConnection pc : active) {
+                    if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMs) {
+                        pc.leakReported = true;
+                        leakCount++;
+                        System.err.println("Possible connection leak: connection held for " + (now - pc.borrowedAt) + " ms.");
+                        if (pc.borrowSite != null) pc.borrowSite.printStackTrace();
+                    }
+                }
+            }
+            missing = Math.max(0, minSize - totalCount);
+            totalCount += missing;
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection pc : evicted) {
+            pc.closeQuietly();
+        }
+        // Top the pool back up to its minimum size so the next click doesn't pay for a handshake.
+        for (int i = 0; i < missing; i++) {
+            try {
+                PooledConnection pc = openReserved();
+                lock.lock();
+                try {
+                    pc.lastReturnedAt = System.currentTimeMillis();
+                    idle.addLast(pc);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException e) {
+                // openReserved() already gave back this slot; release the rest and retry on the next run.
+                lock.lock();
+                try {
+                    totalCount -= missing - i - 1;
+                } finally {
+                    lock.unlock();
+                }
+                break;
+            }
+        }
+    }
+
+    /** One physical connection plus its pool bookkeeping. */
+    private static final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        long lastReturnedAt = System.currentTimeMillis();
+        long borrowedAt;
+        Throwable borrowSite;
+        boolean leakReported;
+        boolean broken;
+
+        PooledConnection(Connection physical, int statementCacheSize) {
+            this.physical = physical;
+            this.statements = new StatementCache(statementCacheSize);
+        }
+
+        boolean isValid(int timeoutSec) {
+            try {
+                return physical.isValid(timeoutSec);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // Undo whatever the borrower changed so the next borrower gets a clean autocommit connection.
+        boolean resetForReuse() {
+            try {
+                if (physical.isClosed()) return false;
+                statements.reclaimAll();
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closeQuietly() {
+            statements.closeAll();
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                // Nothing useful to do; the connection is being discarded anyway.
+            }
+        }
+    }
+
+    /** The handler behind each borrowed Connection proxy. */
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean closed;
+
+        ConnectionHandle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pc.physical;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            if (statementCacheSize > 0 && method.getName().equals("prepareStatement") && args.length == 1) {
+                return prepareCached((Connection) proxy, (String) args[0]);
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState class 08 = connection exception; don't hand this connection out again.
+                if (cause instanceof SQLException sqlEx && sqlEx.getSQLState() != null && sqlEx.getSQLState().startsWith("08")) {
+                    pc.broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        private PreparedStatement prepareCached(Connection connectionProxy, String sql) throws SQLException {
+            CachedStatement cached = pc.statements.get(sql);
+            if (cached != null && !cached.inUse) {
+                statementCacheHits.increment();
+            } else {
+                statementCacheMisses.increment();
+                PreparedStatement physical = pc.physical.prepareStatement(sql);
+                if (cached != null) {
+                    // Same SQL is already open on this connection (nested use): hand out an uncached one.
+                    return physical;
+                }
+                cached = new CachedStatement(sql, physical);
+                pc.statements.put(cached);
+            }
+            cached.inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new StatementHandle(pc, cached, connectionProxy));
+        }
+    }
+
+    /** LRU of prepared statements for one physical connection. Only touched by the current borrower. */
+    private static final class StatementCache {
+        private final int capacity;
+        private final LinkedHashMap<String, CachedStatement> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        StatementCache(int capacity) {
+            this.capacity = capacity;
+        }
+
+        CachedStatement get(String sql) {
+            return entries.get(sql);
+        }
+
+        void put(CachedStatement cached) {
+            entries.put(cached.sql, cached);
+            // Evict least recently used statements, skipping any that are still checked out.
+            Iterator<CachedStatement> it = entries.values().iterator();
+            while (entries.size() > capacity && it.hasNext()) {
+                CachedStatement eldest = it.next();
+                if (!eldest.inUse) {
+                    it.remove();
+                    eldest.closeQuietly();
+                }
+            }
+        }
+
+        void discard(CachedStatement cached) {
+            entries.remove(cached.sql, cached);
+            cached.closeQuietly();
+        }
+
+        // Called when the connection goes back to the pool, in case a borrower forgot to close a statement.
+        // Bumping the generation turns any handle the borrower still holds into a closed statement.
+        void reclaimAll() {
+            for (CachedStatement cached : entries.values()) {
+                if (cached.inUse) {
+                    cached.generation++;
+                    cached.inUse = !cached.resetForReuse();
+                }
+            }
+        }
+
+        void closeAll() {
+            for (CachedStatement cached : entries.values()) {
+                cached.closeQuietly();
+            }
+            entries.clear();
+        }
+    }
+
+    private static final class CachedStatement {
+        final String sql;
+        final PreparedStatement physical;
+        boolean inUse;
+        int generation;  // changes when the statement is taken back from a borrower
+        ResultSet openResultSet;
+
+        CachedStatement(String sql, PreparedStatement physical) {
+            this.sql = sql;
+            this.physical = physical;
+        }
+
+        boolean resetForReuse() {
+            try {
+                if (openResultSet != null) {
+                    openResultSet.close();
+                    openResultSet = null;
+                }
+                physical.clearParameters();
+                physical.clearBatch();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                // Statement is being dropped from the cache anyway.
+            }
+        }
+    }
+
+    /**
+     * The handler behind each PreparedStatement proxy handed out from the statement cache. A handle
+     * only works for the generation of the CachedStatement it was created for: once the connection
+     * goes back to the pool, it acts as closed even if the borrower never closed it.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+        private final PooledConnection pc;
+        private final CachedStatement cached;
+        private final int generation;
+        private final Connection connectionProxy;
+        private boolean closed;
+
+        StatementHandle(PooledConnection pc, CachedStatement cached, Connection connectionProxy) {
+            this.pc = pc;
+            this.cached = cached;
+            this.generation = cached.generation;
+            this.connectionProxy = connectionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!closed && generation != cached.generation) {
+                closed = true;  // reclaimed with the connection; the statement may belong to someone else now
+            }
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (cached.resetForReuse()) {
+                            cached.inUse = false;
+                        } else {
+                            pc.statements.discard(cached);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return connectionProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + cached.physical;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed.");
+            }
+            try {
+                Object result = method.invoke(cached.physical, args);
+                if (result instanceof ResultSet rs) {
+                    cached.openResultSet = rs;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlEx && sqlEx.getSQLState() != null && sqlEx.getSQLState().startsWith("08")) {
+                    pc.broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    /** Point-in-time pool counters. Borrow latency is the time spent inside borrow(). */
+    public record Stats(int active, int idle, int total, int waiters, int maxSize,
+                        long borrowCount, double avgBorrowMillis, double maxBorrowMillis,
+                        long timeouts, long leaksDetected, long created, long destroyed,
+                        long statementCacheHits, long statementCacheMisses) {
+        @Override
+        public String toString() {
+            return String.format("pool[active=%d, idle=%d, total=%d/%d, waiters=%d, borrows=%d, avgBorrow=%.2fms, maxBorrow=%.2fms, timeouts=%d, leaks=%d, created=%d, destroyed=%d, stmtCache=%d hits/%d misses]",
+                    active, idle, total, maxSize, waiters, borrowCount, avgBorrowMillis, maxBorrowMillis, timeouts, leaksDetected, created, destroyed,
+                    statementCacheHits, statementCacheMisses);
+        }
+    }
+}
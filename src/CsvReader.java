@@ -0,0 +1,197 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180 reader for the import CSVs, one record at a time.
+ *
+ * Fields may be quoted; inside quotes, commas and line breaks (CRLF, LF or CR) are data and ""
+ * is a literal quote. A record's fields are unescaped into one reusable char buffer in a single
+ * pass, so reading allocates nothing per field until {@link #get} turns one into a String.
+ * Blank lines are skipped, as is a UTF-8 byte order mark.
+ *
+ * {@link #position} is where the next record starts, as a UTF-8 byte offset and line number, and
+ * {@link #open(String, Position)} continues a file from there (ImportPipeline's checkpoints). The
+ * offset is counted from the decoded chars, so it is exact for well-formed UTF-8.
+ *
+ * Lenient where real exports are sloppy: a quote inside an unquoted field is kept as is, and
+ * spaces before an opening quote are dropped. Only a quote still open at end of input is an error.
+ */
+public final class CsvReader implements Closeable {
+
+    /** Where a record starts: UTF-8 bytes from the start of the file, and its 1-based line. */
+    public record Position(long byteOffset, long line) {
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    // UTF-8 length of everything before buffer[0], and of buffer[0, countedTo), counted lazily.
+    private long bytesBeforeBuffer;
+    private long countedBytes;
+    private int countedTo;
+
+    // The current record: fields back to back in record[0, recordLength), field i ending at fieldEnds[i].
+    private char[] record = new char[1024];
+    private int recordLength;
+    private int[] fieldEnds = new int[32];
+    private int fieldCount;
+
+    private boolean started;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /** Opens a UTF-8 file; malformed bytes become U+FFFD rather than failing the import. */
+    public static CsvReader open(String path) throws IOException {
+        return new CsvReader(new InputStreamReader(Files.newInputStream(Paths.get(path)), StandardCharsets.UTF_8));
+    }
+
+    /** Opens a UTF-8 file at a position an earlier reader of the same file returned. */
+    public static CsvReader open(String path, Position start) throws IOException {
+        InputStream in = Files.newInputStream(Paths.get(path));
+        try {
+            in.skipNBytes(start.byteOffset());
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        reader.started = true;  // no byte order mark mid-file
+        reader.bytesBeforeBuffer = start.byteOffset();
+        reader.line = start.line();
+        return reader;
+    }
+
+    /** Advances to the next non-blank record; false at end of input. */
+    public boolean next() throws IOException {
+        while (readRecord()) {
+            if (fieldCount > 1 || recordLength > 0) return true;
+        }
+        return false;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /** Field index of the current record, unquoted and unescaped. */
+    public String get(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of a record with " + fieldCount + " fields (line " + recordLine + ")");
+        }
+        int start = index == 0 ? 0 : fieldEnds[index - 1];
+        return new String(record, start, fieldEnds[index] - start);
+    }
+
+    /** The line on which the current record starts (1-based; a quoted line break counts as a line). */
+    public long lineNumber() {
+        return recordLine;
+    }
+
+    /** Where the record after the current one starts. */
+    public Position position() {
+        countTo(position);
+        return new Position(bytesBeforeBuffer + countedBytes, line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean readRecord() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        recordLine = line;
+        if (position >= limit && !fill()) return false;
+        if (!started) {
+            started = true;
+            if (buffer[position] == '\uFEFF') position++;
+        }
+
+        int fieldStart = 0;
+        boolean quoted = false;
+        while (true) {
+            if (position >= limit && !fill()) {
+                if (quoted) throw new IOException("Unterminated quoted field in the record starting on line " + recordLine);
+                endField();
+                return true;
+            }
+            char c = buffer[position++];
+            if (quoted) {
+                if (c != '"') {
+                    if (c == '\n') line++;
+                    append(c);
+                } else if ((position < limit || fill()) && buffer[position] == '"') {
+                    append('"');
+                    position++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                endField();
+                fieldStart = recordLength;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && (position < limit || fill()) && buffer[position] == '\n') position++;
+                line++;
+                endField();
+                return true;
+            } else if (c == '"' && blankFrom(fieldStart)) {
+                recordLength = fieldStart;
+                quoted = true;
+            } else {
+                append(c);
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        countTo(limit);
+        bytesBeforeBuffer += countedBytes;
+        countedBytes = 0;
+        countedTo = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private void countTo(int end) {
+        for (int i = countedTo; i < end; i++) {
+            char c = buffer[i];
+            // A surrogate pair is 4 bytes, 2 per half.
+            countedBytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+        countedTo = end;
+    }
+
+    private boolean blankFrom(int start) {
+        for (int i = start; i < recordLength; i++) {
+            if (record[i] != ' ') return false;
+        }
+        return true;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) record = Arrays.copyOf(record, record.length * 2);
+        record[recordLength++] = c;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        fieldEnds[fieldCount++] = recordLength;
+    }
+}
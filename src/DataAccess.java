@@ -0,0 +1,70 @@
+import javax.swing.SwingUtilities;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs repository calls off the Swing event dispatch thread.
+ *
+ * Each call gets its own virtual thread, so a slow query never blocks the UI and
+ * never starves other queries of a platform thread. Actual database concurrency is
+ * still capped by the connection pool's pool.maxSize.
+ *
+ * Typical use from a dialog:
+ * <pre>
+ *   DataAccess.supply(() -> MovieRepository.findDetails(id))
+ *             .whenCompleteAsync((details, error) -> ..., DataAccess.EDT);
+ * </pre>
+ */
+public final class DataAccess {
+
+    /** Hands continuations back to the event dispatch thread. */
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("db-", 0).factory());
+
+    private DataAccess() {
+    }
+
+    @FunctionalInterface
+    public interface SqlSupplier<T> {
+        T get() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface SqlRunnable {
+        void run() throws SQLException;
+    }
+
+    /** Runs a query on a background thread. SQLExceptions complete the future exceptionally. */
+    public static <T> CompletableFuture<T> supply(SqlSupplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return query.get();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /** Runs an update on a background thread. */
+    public static CompletableFuture<Void> run(SqlRunnable update) {
+        return supply(() -> {
+            update.run();
+            return null;
+        });
+    }
+
+    /** Strips the CompletionException/ExecutionException wrappers added by CompletableFuture. */
+    public static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -1,9 +1,7 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Locale;
 
 public class DataImporter {
 
@@ -22,79 +20,64 @@ public class DataImporter {
         int COL_OVERVIEW = 7;    // For synopsis
         int COL_DIRECTOR = 9;
 
-        // --- UPDATED: SQL Query now includes ALL new columns ---
-        String sql = "INSERT INTO Movies (movie_id, title, release_year, director, poster_link, media_type, genres, synopsis, runtime, age_rating, external_score) VALUES (movie_id_seq.NEXTVAL, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        int moviesImported = 0;
-        int linesSkipped = 0;
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             BufferedReader lineReader = new BufferedReader(new FileReader(csvFilePath))) {
-
-            conn.setAutoCommit(false);
-            lineReader.readLine(); // Skip header
+        // --- NEW: re-runs only write new and changed rows; --full rewrites every row, and --bulk
+        // direct-path loads new ones (for full catalog rebuilds) ---
+        boolean full = Arrays.asList(args).contains("--full");
+        boolean bulk = Arrays.asList(args).contains("--bulk");
 
+        // --- UPDATED: a reader, parser workers and writer threads (each with its own connection) run as a
+        // pipeline; see ImportPipeline and the import.* settings in db.properties ---
+        try {
             System.out.println("🚀 Starting MOVIE import process with FULL details...");
 
-            String lineText;
-            while ((lineText = lineReader.readLine()) != null) {
-                String[] data = lineText.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-                try {
-                    // --- UPDATED: Read data from ALL relevant columns ---
-                    String posterLink = data[COL_POSTER].trim().replaceAll("^\"|\"$", "");
-                    String title = data[COL_TITLE].trim().replaceAll("^\"|\"$", "");
-                    String yearStr = data[COL_YEAR].trim().replaceAll("^\"|\"$", "");
-                    String ageRating = data[COL_CERTIFICATE].trim().replaceAll("^\"|\"$", "");
-                    String runtime = data[COL_RUNTIME].trim().replaceAll("^\"|\"$", "");
-                    String genres = data[COL_GENRE].trim().replaceAll("^\"|\"$", "");
-                    String imdbRatingStr = data[COL_IMDB_RATING].trim().replaceAll("^\"|\"$", "");
-                    String synopsis = data[COL_OVERVIEW].trim().replaceAll("^\"|\"$", "");
-                    String director = data[COL_DIRECTOR].trim().replaceAll("^\"|\"$", "");
-                    
-                    if (!yearStr.matches("\\d{4}")) { // Ensure it's a 4-digit year
-                        linesSkipped++;
-                        continue;
-                    }
-                    int year = Integer.parseInt(yearStr);
+            ImportPipeline.Result result = new ImportPipeline(DatabaseConnector.loadConfig(), full, bulk).run(csvFilePath, fields -> {
+                // Skip rows that don't have enough columns
+                if (fields.length <= COL_DIRECTOR) {
+                    throw new ImportPipeline.Rejected(null, "Only " + fields.length + " columns", null);
+                }
 
-                    // Handle potential non-numeric rating
-                    double externalScore = 0.0;
-                    try {
-                        externalScore = Double.parseDouble(imdbRatingStr);
-                    } catch (NumberFormatException e) {
-                        // Keep externalScore as 0.0 if parsing fails
-                    }
+                // --- UPDATED: Read data from ALL relevant columns ---
+                String posterLink = fields[COL_POSTER].trim();
+                String title = fields[COL_TITLE].trim();
+                String yearStr = fields[COL_YEAR].trim();
+                String ageRating = fields[COL_CERTIFICATE].trim();
+                String runtime = fields[COL_RUNTIME].trim();
+                String genres = fields[COL_GENRE].trim();
+                String imdbRatingStr = fields[COL_IMDB_RATING].trim();
+                String synopsis = fields[COL_OVERVIEW].trim();
+                String director = fields[COL_DIRECTOR].trim();
+
+                if (!yearStr.matches("\\d{4}")) { // Ensure it's a 4-digit year
+                    throw new ImportPipeline.Rejected("Released_Year", "Invalid year: " + yearStr, title);
+                }
+                int year = Integer.parseInt(yearStr);
 
+                // Handle potential non-numeric rating
+                double externalScore = 0.0;
+                try {
+                    externalScore = Double.parseDouble(imdbRatingStr);
+                } catch (NumberFormatException e) {
+                    // Keep externalScore as 0.0 if parsing fails
+                }
 
-                    // --- UPDATED: Set ALL parameters for the INSERT statement ---
-                    pstmt.setString(1, title);
-                    pstmt.setInt(2, year);
-                    pstmt.setString(3, director);
-                    pstmt.setString(4, posterLink);
-                    pstmt.setString(5, "movie"); // media_type
-                    pstmt.setString(6, genres);     // genres
-                    pstmt.setString(7, synopsis);   // synopsis
-                    pstmt.setString(8, runtime);    // runtime
-                    pstmt.setString(9, ageRating);  // age_rating
-                    pstmt.setDouble(10, externalScore); // external_score
-                    
-                    pstmt.addBatch();
-                    moviesImported++;
+                // The file has no id column, so a movie is known by its title and year.
+                String sourceKey = "movie:" + title.toLowerCase(Locale.ROOT) + ":" + year;
+                return new MovieRecord(sourceKey, title, year, director, posterLink, "movie", genres, synopsis,
+                        runtime, ageRating, externalScore, null, null, null, null);
+            });
 
-                } catch (Exception e) {
-                    System.err.println("Skipping line due to parsing error: " + lineText + " | Error: " + e.getMessage());
-                    linesSkipped++;
-                }
+            System.out.println("Linking genres...");
+            GenreCatalog.Counts genreLinks = DatabaseConnector.inTransaction(GenreRepository::linkUnlinkedMovies);
+            if (result.written() > 0) {
+                GenreCatalog.rebuild(); // updated titles were relinked too, so recount instead of adding
             }
 
-            System.out.println("Executing batch insert... Please wait.");
-            pstmt.executeBatch();
-            conn.commit();
-
             System.out.println("\n✅ Movie import complete!");
-            System.out.println("Total movies imported: " + moviesImported);
-            System.out.println("Total lines skipped: " + linesSkipped);
+            System.out.println("Total movies written (new or changed): " + result.written());
+            System.out.println("Unchanged since the last import: " + result.unchanged());
+            System.out.println("Duplicates skipped: " + result.duplicates());
+            System.out.println("Total lines skipped: " + result.rejected());
+            System.out.println("Genre links created: " + genreLinks.total());
 
         } catch (IOException e) {
             System.err.println("Error reading the file: " + e.getMessage());
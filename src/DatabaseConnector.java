@@ -1,16 +1,135 @@
 // Place this file in the 'src' folder
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DatabaseConnector {
-    private static final String URL = "jdbc:oracle:thin:@localhost:1521/XE";
-    private static final String USER = "system";
+    // Connection settings now live in db.properties (next to the jar / project root).
+    // Point -Dfilmfolio.db.config=/path/to/file.properties at another file to override it.
+    private static final String CONFIG_PROPERTY = "filmfolio.db.config";
+    private static final String DEFAULT_CONFIG_FILE = "db.properties";
 
-    // ‼️ VERY IMPORTANT: Replace this with your actual Oracle password!
-    private static final String PASSWORD = "dev123";
+    // Work that must still reach the database at exit (e.g. LikeWriteQueue); runs before the pool closes.
+    private static final List<Runnable> shutdownTasks = new CopyOnWriteArrayList<>();
+
+    // The pool is created the first time anyone asks for a connection.
+    private static final class PoolHolder {
+        static final ConnectionPool POOL = createPool();
+    }
 
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return PoolHolder.POOL.borrow();
+    }
+
+    // For a connection held on purpose for a long time (an import writer); exempt from leak detection.
+    public static Connection getLongLivedConnection() throws SQLException {
+        return PoolHolder.POOL.borrowLongLived();
+    }
+
+    public static ConnectionPool.Stats getPoolStats() {
+        return PoolHolder.POOL.getStats();
+    }
+
+    public static void runBeforeShutdown(Runnable task) {
+        shutdownTasks.add(task);
+    }
+
+    @FunctionalInterface
+    public interface TransactionBody<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    // Runs body on one connection inside a single transaction: commit on success, rollback on any failure.
+    public static <T> T inTransaction(TransactionBody<T> body) throws SQLException {
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                T result = body.execute(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private static ConnectionPool createPool() {
+        ConnectionPool pool = new ConnectionPool(loadConfig());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Runnable task : shutdownTasks) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            System.out.println("Shutting down " + pool.getStats());
+            pool.shutdown();
+        }, "db-pool-shutdown"));
+        return pool;
+    }
+
+    static Properties loadConfig() {
+        Properties config = new Properties();
+        Path configFile = Paths.get(System.getProperty(CONFIG_PROPERTY, DEFAULT_CONFIG_FILE));
+        try {
+            if (Files.isRegularFile(configFile)) {
+                try (InputStream in = new FileInputStream(configFile.toFile())) {
+                    config.load(in);
+                }
+            } else {
+                try (InputStream in = DatabaseConnector.class.getResourceAsStream("/" + DEFAULT_CONFIG_FILE)) {
+                    if (in != null) {
+                        config.load(in);
+                    } else {
+                        System.err.println("No " + DEFAULT_CONFIG_FILE + " found; using built-in database defaults.");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read database config " + configFile + ": " + e.getMessage());
+        }
+        return config;
+    }
+
+    /** A numeric setting from loadConfig(), or defaultValue (with a warning) if it is missing or invalid. */
+    static long longProperty(Properties config, String key, long defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    static int intProperty(Properties config, String key, int defaultValue) {
+        long value = longProperty(config, key, defaultValue);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            System.err.println("Ignoring invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+        return (int) value;
+    }
+
+    static double doubleProperty(Properties config, String key, double defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Application-wide cache of the genre dropdown: every genre with its number of titles,
+ * per media_type.
+ *
+ * It is built once from Movie_Genres, kept in memory for the life of the JVM (so a new
+ * MainFrame after logout doesn't query anything) and persisted to cache/genre_catalog.properties
+ * so the next start doesn't either. Writers keep it current instead of invalidating it:
+ * MovieRepository.insert and the importers add their new titles' genres through
+ * {@link #recordAdded} / {@link #merge}. Delete the file (or run GenreMigration) to force a rebuild.
+ */
+public final class GenreCatalog {
+
+    private static final Path CACHE_FILE = Paths.get("cache", "genre_catalog.properties");
+    private static final String KEY_SEPARATOR = "|";
+
+    private static Counts counts;  // null until loaded from disk or the database
+
+    private GenreCatalog() {
+    }
+
+    /** Genre name -> title count for one media type, sorted by name. Loads the catalog on first use. */
+    public static synchronized SortedMap<String, Integer> getGenreCounts(String mediaType) throws SQLException {
+        if (counts == null && !loadFromDisk()) {
+            rebuild();
+        }
+        return Collections.unmodifiableSortedMap(new TreeMap<>(counts.forType(mediaType)));
+    }
+
+    /** Recomputes the whole catalog from the database and persists it. */
+    public static synchronized void rebuild() throws SQLException {
+        counts = GenreRepository.countByMediaType();
+        save();
+    }
+
+    /** Write-through for a single new title. */
+    public static void recordAdded(String mediaType, Collection<String> genres) {
+        Counts added = new Counts();
+        for (String genre : genres) {
+            added.add(mediaType, genre, 1);
+        }
+        merge(added);
+    }
+
+    /**
+     * Adds counts for newly linked titles. If nothing has been cached yet there is nothing
+     * to keep current: the first reader builds the catalog from the database anyway.
+     */
+    public static synchronized void merge(Counts added) {
+        if (added.total() == 0 || (counts == null && !loadFromDisk())) {
+            return;
+        }
+        for (Map.Entry<String, SortedMap<String, Integer>> type : added.byType.entrySet()) {
+            for (Map.Entry<String, Integer> genre : type.getValue().entrySet()) {
+                counts.add(type.getKey(), genre.getKey(), genre.getValue());
+            }
+        }
+        save();
+    }
+
+    private static boolean loadFromDisk() {
+        if (!Files.isRegularFile(CACHE_FILE)) {
+            return false;
+        }
+        Properties stored = new Properties();
+        try (InputStream in = Files.newInputStream(CACHE_FILE)) {
+            stored.load(in);
+        } catch (IOException e) {
+            System.err.println("Could not read genre cache " + CACHE_FILE + ": " + e.getMessage());
+            return false;
+        }
+        Counts loaded = new Counts();
+        for (String key : stored.stringPropertyNames()) {
+            int separator = key.indexOf(KEY_SEPARATOR);
+            try {
+                loaded.add(key.substring(0, separator), key.substring(separator + 1), Integer.parseInt(stored.getProperty(key)));
+            } catch (RuntimeException e) {
+                System.err.println("Ignoring malformed genre cache entry: " + key);
+            }
+        }
+        counts = loaded;
+        return true;
+    }
+
+    // Written to a temp file and moved into place so a crash or a concurrent importer never leaves half a file.
+    private static void save() {
+        Properties stored = new Properties();
+        for (Map.Entry<String, SortedMap<String, Integer>> type : counts.byType.entrySet()) {
+            for (Map.Entry<String, Integer> genre : type.getValue().entrySet()) {
+                stored.setProperty(type.getKey() + KEY_SEPARATOR + genre.getKey(), genre.getValue().toString());
+            }
+        }
+        try {
+            Files.createDirectories(CACHE_FILE.getParent());
+            Path temp = Files.createTempFile(CACHE_FILE.getParent(), "genre_catalog", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                stored.store(out, "FilmFolio genre catalog: <media_type>|<genre>=<title count>");
+            }
+            Files.move(temp, CACHE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write genre cache " + CACHE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    /** Title counts keyed by media_type, then genre name. Also used to collect the delta of an import. */
+    public static final class Counts {
+        private final Map<String, SortedMap<String, Integer>> byType = new HashMap<>();
+        private int total;
+
+        public void add(String mediaType, String genre, int count) {
+            byType.computeIfAbsent(mediaType, t -> new TreeMap<>()).merge(genre, count, Integer::sum);
+            total += count;
+        }
+
+        /** Sum of all counts, i.e. the number of (title, genre) links. */
+        public int total() {
+            return total;
+        }
+
+        SortedMap<String, Integer> forType(String mediaType) {
+            return byType.getOrDefault(mediaType, Collections.emptySortedMap());
+        }
+    }
+}
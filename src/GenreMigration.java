@@ -0,0 +1,23 @@
+import java.sql.SQLException;
+
+/**
+ * One-time migration that fills Genres and Movie_Genres from the existing Movies.genres
+ * strings. Run it once after schema_upgrade.sql has created the tables:
+ *   java -cp ... GenreMigration
+ * It also rebuilds the cached genre catalog. It only touches titles that have no Movie_Genres rows yet, so running it again is harmless.
+ */
+public class GenreMigration {
+
+    public static void main(String[] args) {
+        System.out.println("Linking existing titles to the genre dictionary...");
+        long start = System.currentTimeMillis();
+        try {
+            int links = DatabaseConnector.inTransaction(GenreRepository::linkUnlinkedMovies).total();
+            GenreCatalog.rebuild();
+            System.out.println("✅ Done in " + (System.currentTimeMillis() - start) + " ms. Genre links created: " + links);
+        } catch (SQLException e) {
+            System.err.println("Database error during migration: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
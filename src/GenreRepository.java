@@ -0,0 +1,149 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * All SQL against the Genres dictionary and the Movie_Genres join table.
+ *
+ * Movies.genres is still stored as the comma-separated display string; Movie_Genres holds
+ * the same information normalized, so filtering by genre is an index lookup on
+ * (genre_id, movie_id) instead of a LIKE scan over Movies.
+ */
+public final class GenreRepository {
+
+    private static final String FIND_ALL_IDS_SQL =
+            "SELECT genre_id, name FROM Genres";
+    private static final String NEXT_GENRE_ID_SQL =
+            "SELECT genre_id_seq.NEXTVAL FROM dual";
+    private static final String INSERT_GENRE_SQL =
+            "INSERT INTO Genres (genre_id, name) VALUES (?, ?)";
+    private static final String COUNT_BY_MEDIA_TYPE_SQL =
+            "SELECT m.media_type, g.name, COUNT(*) as item_count FROM Movie_Genres mg " +
+            "JOIN Genres g ON g.genre_id = mg.genre_id JOIN Movies m ON m.movie_id = mg.movie_id " +
+            "GROUP BY m.media_type, g.name";
+    private static final String FIND_UNLINKED_MOVIES_SQL =
+            "SELECT m.movie_id, m.media_type, m.genres FROM Movies m WHERE m.genres IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM Movie_Genres mg WHERE mg.movie_id = m.movie_id)";
+    private static final String INSERT_LINK_SQL =
+            "INSERT INTO Movie_Genres (movie_id, genre_id) VALUES (?, ?)";
+
+    private static final int LINK_BATCH_SIZE = 1000;
+
+    private GenreRepository() {
+    }
+
+    /** Title count per (media_type, genre); the source GenreCatalog is built from. */
+    public static GenreCatalog.Counts countByMediaType() throws SQLException {
+        GenreCatalog.Counts counts = new GenreCatalog.Counts();
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(COUNT_BY_MEDIA_TYPE_SQL)) {
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                counts.add(rs.getString("media_type"), rs.getString("name"), rs.getInt("item_count"));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Links one title to its genres, adding unknown names to Genres on the way.
+     * Runs on the caller's connection and transaction.
+     */
+    public static void linkGenres(Connection conn, int movieId, String genres) throws SQLException {
+        Set<String> names = splitGenres(genres);
+        if (names.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> genreIds = loadGenreIds(conn);
+        try (PreparedStatement link = conn.prepareStatement(INSERT_LINK_SQL)) {
+            for (String name : names) {
+                link.setInt(1, movieId);
+                link.setInt(2, genreId(conn, genreIds, name));
+                link.addBatch();
+            }
+            link.executeBatch();
+        }
+    }
+
+    /**
+     * Fills Movie_Genres for every title that has a genres string but no links yet, adding
+     * unknown names to Genres on the way. Runs on the caller's connection and transaction,
+     * so importers can link their freshly inserted rows before committing.
+     * Returns what was linked, per media type and genre, for {@link GenreCatalog#merge}.
+     */
+    public static GenreCatalog.Counts linkUnlinkedMovies(Connection conn) throws SQLException {
+        Map<String, Integer> genreIds = loadGenreIds(conn);
+        GenreCatalog.Counts linked = new GenreCatalog.Counts();
+        int links = 0;
+        try (PreparedStatement select = conn.prepareStatement(FIND_UNLINKED_MOVIES_SQL);
+             PreparedStatement link = conn.prepareStatement(INSERT_LINK_SQL)) {
+            ResultSet rs = select.executeQuery();
+            while (rs.next()) {
+                int movieId = rs.getInt("movie_id");
+                String mediaType = rs.getString("media_type");
+                for (String name : splitGenres(rs.getString("genres"))) {
+                    link.setInt(1, movieId);
+                    link.setInt(2, genreId(conn, genreIds, name));
+                    link.addBatch();
+                    linked.add(mediaType, name, 1);
+                    if (++links % LINK_BATCH_SIZE == 0) {
+                        link.executeBatch();
+                    }
+                }
+            }
+            link.executeBatch();
+        }
+        return linked;
+    }
+
+    /** Splits a comma-separated genres string into trimmed, de-duplicated names. */
+    static Set<String> splitGenres(String genres) {
+        Set<String> names = new LinkedHashSet<>();
+        if (genres == null) {
+            return names;
+        }
+        for (String genre : genres.split(",")) {
+            String trimmedGenre = genre.trim();
+            if (!trimmedGenre.isEmpty()) {
+                names.add(trimmedGenre);
+            }
+        }
+        return names;
+    }
+
+    private static Map<String, Integer> loadGenreIds(Connection conn) throws SQLException {
+        Map<String, Integer> genreIds = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(FIND_ALL_IDS_SQL)) {
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                genreIds.put(rs.getString("name"), rs.getInt("genre_id"));
+            }
+        }
+        return genreIds;
+    }
+
+    // Looks the name up in the dictionary, inserting it first if it is new.
+    private static int genreId(Connection conn, Map<String, Integer> genreIds, String name) throws SQLException {
+        Integer id = genreIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId;
+        try (PreparedStatement pstmt = conn.prepareStatement(NEXT_GENRE_ID_SQL)) {
+            ResultSet rs = pstmt.executeQuery();
+            rs.next();
+            newId = rs.getInt(1);
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_GENRE_SQL)) {
+            pstmt.setInt(1, newId);
+            pstmt.setString(2, name);
+            pstmt.executeUpdate();
+        }
+        genreIds.put(name, newId);
+        return newId;
+    }
+}
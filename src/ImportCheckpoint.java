@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Resume point of an import, kept next to the CSV as &lt;csv&gt;.checkpoint: the position up to
+ * which every record is committed (or rejected or unchanged). ImportPipeline saves it at most
+ * once per SAVE_INTERVAL_MILLIS while it runs, and once more if it fails, and deletes it when
+ * the import completes. A checkpoint is only used for the same file: if the CSV's size or
+ * modification time has changed since, the import starts over (and skips unchanged rows by hash).
+ */
+public final class ImportCheckpoint {
+
+    private static final long SAVE_INTERVAL_MILLIS = 1_000;
+
+    private final Path file;
+    private final long sourceSize;
+    private final long sourceModified;
+    private long lastSavedAt;  // guarded by this
+
+    public ImportCheckpoint(String csvPath) throws IOException {
+        Path source = Paths.get(csvPath);
+        this.file = Paths.get(csvPath + ".checkpoint");
+        this.sourceSize = Files.size(source);
+        this.sourceModified = Files.getLastModifiedTime(source).toMillis();
+    }
+
+    /** Where the last run stopped, or null if there is nothing to resume. */
+    public CsvReader.Position load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties stored = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            stored.load(in);
+            if (Long.parseLong(stored.getProperty("source.size")) != sourceSize
+                    || Long.parseLong(stored.getProperty("source.modified")) != sourceModified) {
+                System.out.println("Ignoring " + file + ": the CSV has changed since.");
+                return null;
+            }
+            return new CsvReader.Position(Long.parseLong(stored.getProperty("byteOffset")), Long.parseLong(stored.getProperty("line")));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable checkpoint " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /** Records position; unless force, skipped if the last save was under SAVE_INTERVAL_MILLIS ago. */
+    public synchronized void save(CsvReader.Position position, boolean force) throws IOException {
+        long now = System.currentTimeMillis();
+        if (position == null || (!force && now - lastSavedAt < SAVE_INTERVAL_MILLIS)) {
+            return;
+        }
+        lastSavedAt = now;
+        Properties stored = new Properties();
+        stored.setProperty("source.size", Long.toString(sourceSize));
+        stored.setProperty("source.modified", Long.toString(sourceModified));
+        stored.setProperty("byteOffset", Long.toString(position.byteOffset()));
+        stored.setProperty("line", Long.toString(position.line()));
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, "import", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                stored.store(out, "FilmFolio import checkpoint: every record before this point is done");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public synchronized void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
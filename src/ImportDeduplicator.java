@@ -0,0 +1,113 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Stops an import from adding a title twice. Only source_key is unique in Movies, so a re-release
+ * or repeated row with its own id would otherwise become a second row. A new source key is a
+ * duplicate if an imported title in Movies already has its media_type, release_year and
+ * UPPER(title).
+ *
+ * The imported titles are kept only as a BloomFilter: loaded from Movies up front and extended
+ * with each new title once MovieBatchWriter has committed it, so a rejected row never counts and
+ * memory stays the filter's whatever the size of the file. Most rows are cleared without a query;
+ * a probable hit is confirmed exactly against Movies (through idx_movies_type_upper_title) on the
+ * asking writer's connection. ImportPipeline hands all rows of a title to the same writer in file
+ * order, so the earlier row is committed by the time a later one is checked and the first row in
+ * the file is the one kept. Keyless rows don't count, since MovieBatchWriter adopts them.
+ * Thread-safe: the writers share one instance per import.
+ */
+public final class ImportDeduplicator {
+
+    private static final String COUNT_TITLES_SQL = "SELECT COUNT(source_key) FROM Movies";
+    private static final String EXISTING_TITLES_SQL =
+            "SELECT media_type, release_year, title FROM Movies WHERE source_key IS NOT NULL";
+    private static final String FIND_DUPLICATE_SQL =
+            "SELECT source_key FROM Movies WHERE media_type = ? AND UPPER(title) = ? AND release_year = ? "
+                    + "AND source_key IS NOT NULL AND ROWNUM = 1";
+    private static final char SEPARATOR = '\u001F';
+
+    private final BloomFilter seen;  // guarded by this
+    private long databaseChecks;     // guarded by this
+    private long falsePositives;     // guarded by this
+
+    private ImportDeduplicator(BloomFilter seen) {
+        this.seen = seen;
+    }
+
+    /**
+     * Loads the imported titles in Movies into a filter sized for them plus expectedNewTitles at
+     * import.dedup.falsePositiveRate.
+     */
+    public static ImportDeduplicator open(Properties config, long expectedNewTitles) throws SQLException {
+        long expectedTitles = expectedNewTitles;
+        BloomFilter seen;
+        try (Connection conn = DatabaseConnector.getLongLivedConnection();  // reads every imported title
+             PreparedStatement count = conn.prepareStatement(COUNT_TITLES_SQL);
+             PreparedStatement pstmt = conn.prepareStatement(EXISTING_TITLES_SQL)) {
+            ResultSet counted = count.executeQuery();
+            if (counted.next()) expectedTitles += counted.getLong(1);
+            seen = new BloomFilter(expectedTitles, DatabaseConnector.doubleProperty(config, "import.dedup.falsePositiveRate", 0.01));
+            pstmt.setFetchSize(1_000);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                seen.put(key(rs.getString("media_type"), rs.getInt("release_year"), rs.getString("title")));
+            }
+        }
+        System.out.printf("Duplicate check: %d KB filter for %d titles.%n", seen.sizeInBytes() / 1024, expectedTitles);
+        return new ImportDeduplicator(seen);
+    }
+
+    /** What rows are compared by: media_type, release_year and upper-cased title. */
+    public static String keyOf(MovieRecord movie) {
+        return key(movie.mediaType(), movie.releaseYear(), movie.title());
+    }
+
+    /**
+     * Returns the source_key of the imported title that movie (whose source key is new to Movies)
+     * duplicates, or null if it is a new title. Queries conn only if the filter may have it.
+     */
+    public String duplicateOf(Connection conn, MovieRecord movie) throws SQLException {
+        synchronized (this) {
+            if (!seen.mightContain(keyOf(movie))) return null;
+            databaseChecks++;
+        }
+        String existing;
+        try (PreparedStatement pstmt = conn.prepareStatement(FIND_DUPLICATE_SQL)) {
+            pstmt.setString(1, movie.mediaType());
+            pstmt.setString(2, movie.title().toUpperCase(Locale.ROOT));
+            pstmt.setInt(3, movie.releaseYear());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                existing = rs.next() ? rs.getString("source_key") : null;
+            }
+        }
+        if (existing == null) {
+            synchronized (this) {
+                falsePositives++;
+            }
+        }
+        return existing;
+    }
+
+    /** Called once movie's row is committed, so later rows with its title are checked against it. */
+    public synchronized void recordWritten(MovieRecord movie) {
+        seen.put(keyOf(movie));
+    }
+
+    /** Probable hits that had to be looked up in Movies. */
+    public synchronized long getDatabaseChecks() {
+        return databaseChecks;
+    }
+
+    /** Database checks that found nothing: the filter's false positives. */
+    public synchronized long getFalsePositives() {
+        return falsePositives;
+    }
+
+    private static String key(String mediaType, int releaseYear, String title) {
+        return mediaType + SEPARATOR + releaseYear + SEPARATOR + (title == null ? "" : title.toUpperCase(Locale.ROOT));
+    }
+}
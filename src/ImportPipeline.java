@@ -0,0 +1,501 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Staged, multi-threaded CSV import into Movies, used by DataImporter and AnimeImporter.
+ *
+ * The calling thread reads records with CsvReader. import.parserThreads workers turn them into
+ * MovieRecords. A sequencer puts the parsed chunks back in file order and splits each among
+ * import.writerThreads writers by title, so every row of a title goes to the same writer, in file
+ * order. Each writer inserts its rows with its own pooled connection and MovieBatchWriter. Records
+ * move between the stages in chunks of CHUNK_ROWS through bounded queues, so a fast stage waits
+ * for a slow one instead of buffering the file in memory.
+ *
+ * Imports are incremental. Parsers hash each row; writers compare the hashes of a chunk with
+ * Movies.content_hash for its source keys and skip unchanged rows. New and changed rows are MERGEd,
+ * so rows may be written in any order and re-running an import never duplicates titles. Progress
+ * is checkpointed (ImportCheckpoint), so a run that fails or is killed resumes after the last
+ * chunk that was fully committed, keeping the rejects recorded before it. With full set, hashes
+ * and checkpoint are ignored and every row is written again.
+ *
+ * The rejects of an import go to &lt;csv&gt;.rejects.csv (see RejectsFile).
+ *
+ * With bulk set (full catalog rebuilds), new titles are direct-path inserted with preallocated ids
+ * (see MovieBatchWriter) by a single writer, since a direct-path insert locks the table anyway.
+ * Unless import.bulk.rebuildIndexes is false, Movies' secondary indexes are made unusable for the
+ * load and rebuilt afterwards, also when it fails.
+ *
+ * While it runs, a progress line (share of the file read, rows/s, ETA) is printed every
+ * import.progressIntervalSec seconds; the final report splits the time into reading, parsing,
+ * looking up hashes, binding, executeBatch and commit. Summed over threads, so with several parsers or writers a stage
+ * can account for more than the elapsed time.
+ *
+ * Unless import.dedup is false, a row with a new source key whose title, year and media type an
+ * imported title already has (in Movies, or committed from earlier in the file) is skipped as a
+ * duplicate and listed in the rejects file; see ImportDeduplicator. Since a title's rows reach
+ * its writer in file order, the first of them is always the one kept.
+ *
+ * Genres are linked once, after run() returns. If any stage fails, the others stop and run()
+ * rethrows the first failure; batches committed until then stay in the database. Use one instance
+ * per import.
+ */
+public final class ImportPipeline {
+
+    /** Thrown by a RowParser for a record that should go to the rejects file. */
+    public static final class Rejected extends Exception {
+        private final String column;
+        private final String title;
+
+        /** column: the source column at fault, or null if it is the record as a whole. */
+        public Rejected(String column, String reason, String title) {
+            super(reason);
+            this.column = column;
+            this.title = title;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowParser {
+        /** Turns one record's fields into a row. Called from several threads at once. */
+        MovieRecord parse(String[] fields) throws Rejected;
+    }
+
+    /**
+     * written: rows inserted or updated; unchanged: rows skipped because their hash matched;
+     * duplicates: rows skipped by the duplicate check; rejected: every other line that failed.
+     */
+    public record Result(int written, int unchanged, int duplicates, int rejected, long elapsedMillis) {
+    }
+
+    private record Line<T>(long number, T value) {
+    }
+
+    // seq numbers chunks in file order, for ordering and checkpointing; END (seq -1) tells a stage its input is done.
+    private record Chunk<T>(long seq, List<Line<T>> lines) {
+    }
+
+    private record Parsed(MovieRecord movie, String contentHash) {
+    }
+
+    private static final int CHUNK_ROWS = 256;
+    private static final int QUEUED_CHUNKS_PER_THREAD = 2;
+    private static final long POLL_MILLIS = 100;
+    // Sizes the duplicate filter from the file: lines of both datasets are longer than this.
+    private static final long MIN_ROW_BYTES = 200;
+
+    private final Properties config;
+    private final boolean full;
+    private final boolean bulk;
+    private final boolean rebuildIndexes;
+    private final boolean dedup;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final long progressIntervalMillis;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retriedBatches = new LongAdder();
+    private final LongAdder rowsRead = new LongAdder();
+    private volatile long bytesRead;
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder readerWaitNanos = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final LongAdder bindNanos = new LongAdder();
+    private final LongAdder executeNanos = new LongAdder();
+    private final LongAdder commitNanos = new LongAdder();
+
+    // Checkpointing: the reader records where each chunk ends; once every chunk up to one is
+    // done, that chunk's end is the resume point. Guarded by this.
+    private final Map<Long, CsvReader.Position> chunkEnds = new HashMap<>();
+    private final Set<Long> doneChunks = new HashSet<>();
+    private final Map<Long, Integer> partsLeft = new HashMap<>();  // writers still holding part of a chunk
+    private long firstUndoneChunk;
+    private CsvReader.Position resumePoint;
+    private ImportCheckpoint checkpoint;
+    private RejectsFile rejects;  // flushed before every checkpoint, so a resume never loses a reject before it
+
+    public ImportPipeline(Properties config, boolean full, boolean bulk) {
+        this.config = config;
+        this.full = full;
+        this.bulk = bulk;
+        this.rebuildIndexes = bulk && !"false".equalsIgnoreCase(config.getProperty("import.bulk.rebuildIndexes", "true").trim());
+        this.dedup = !"false".equalsIgnoreCase(config.getProperty("import.dedup", "true").trim());
+        int parsers = DatabaseConnector.intProperty(config, "import.parserThreads", 0);
+        this.parserThreads = parsers > 0 ? parsers : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.writerThreads = bulk ? 1 : Math.max(1, DatabaseConnector.intProperty(config, "import.writerThreads", 4));
+        this.progressIntervalMillis = Math.max(1, DatabaseConnector.longProperty(config, "import.progressIntervalSec", 5)) * 1000;
+    }
+
+    /** Imports every record of csvPath after the header line. Returns once all rows are committed. */
+    public Result run(String csvPath, RowParser parser) throws IOException, SQLException {
+        if (!rebuildIndexes) {
+            return load(csvPath, parser);
+        }
+        List<String> indexes = MovieBatchWriter.disableSecondaryIndexes();
+        System.out.println("Disabled indexes for the load: " + indexes);
+        try {
+            return load(csvPath, parser);
+        } finally {
+            MovieBatchWriter.rebuildIndexes(indexes);
+        }
+    }
+
+    private Result load(String csvPath, RowParser parser) throws IOException, SQLException {
+        long startNanos = System.nanoTime();
+        checkpoint = new ImportCheckpoint(csvPath);
+        CsvReader.Position resumeFrom = full ? null : checkpoint.load();
+        try (RejectsFile rejects = new RejectsFile(Paths.get(csvPath + ".rejects.csv"), resumeFrom)) {
+            return load(csvPath, parser, rejects, resumeFrom, startNanos);
+        }
+    }
+
+    private Result load(String csvPath, RowParser parser, RejectsFile rejects, CsvReader.Position resumeFrom, long startNanos)
+            throws IOException, SQLException {
+        this.rejects = rejects;
+        long fileSize = Files.size(Paths.get(csvPath));
+        long startOffset = resumeFrom != null ? resumeFrom.byteOffset() : 0;
+        bytesRead = startOffset;
+        ImportDeduplicator deduplicator = dedup ? ImportDeduplicator.open(config, (fileSize - startOffset) / MIN_ROW_BYTES) : null;
+
+        BlockingQueue<Chunk<String[]>> records = new ArrayBlockingQueue<>(parserThreads * QUEUED_CHUNKS_PER_THREAD);
+        BlockingQueue<Chunk<Parsed>> parsedChunks = new ArrayBlockingQueue<>(parserThreads * QUEUED_CHUNKS_PER_THREAD);
+        List<BlockingQueue<Chunk<Parsed>>> writerQueues = new ArrayList<>(writerThreads);
+        for (int i = 0; i < writerThreads; i++) {
+            writerQueues.add(new ArrayBlockingQueue<>(QUEUED_CHUNKS_PER_THREAD));
+        }
+        AtomicInteger parsersLeft = new AtomicInteger(parserThreads);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < parserThreads; i++) {
+            threads.add(start("import-parser-" + i, () -> {
+                Chunk<String[]> chunk;
+                while ((chunk = take(records)) != null && chunk.seq() >= 0) {
+                    List<Line<Parsed>> parsed = new ArrayList<>(chunk.lines().size());
+                    for (Line<String[]> record : chunk.lines()) {
+                        long parseStart = System.nanoTime();
+                        MovieRecord movie = parseOrReject(parser, record, rejects);
+                        String hash = movie == null ? null : movie.contentHash();
+                        parseNanos.add(System.nanoTime() - parseStart);
+                        if (movie == null) continue;
+                        parsed.add(new Line<>(record.number(), new Parsed(movie, hash)));
+                    }
+                    put(parsedChunks, new Chunk<>(chunk.seq(), parsed));  // even if empty: the sequencer counts seqs
+                }
+                // The last parser to finish tells the sequencer there is no more input.
+                if (parsersLeft.decrementAndGet() == 0) {
+                    put(parsedChunks, new Chunk<>(-1, List.of()));
+                }
+            }));
+        }
+        threads.add(start("import-sequencer", () -> {
+            // Chunks that arrived before an earlier one; at most the few the parsers work on at once.
+            Map<Long, Chunk<Parsed>> early = new HashMap<>();
+            long next = 0;
+            Chunk<Parsed> chunk;
+            while ((chunk = take(parsedChunks)) != null && chunk.seq() >= 0) {
+                early.put(chunk.seq(), chunk);
+                while ((chunk = early.remove(next)) != null) {
+                    dispatch(chunk, writerQueues, deduplicator != null);
+                    next++;
+                }
+            }
+            for (BlockingQueue<Chunk<Parsed>> queue : writerQueues) put(queue, new Chunk<>(-1, List.of()));
+        }));
+        for (int i = 0; i < writerThreads; i++) {
+            BlockingQueue<Chunk<Parsed>> rows = writerQueues.get(i);
+            threads.add(start("import-writer-" + i, () -> {
+                // Held for the whole import, so it is exempt from the pool's leak detection.
+                try (Connection conn = DatabaseConnector.getLongLivedConnection();
+                     MovieBatchWriter writer = new MovieBatchWriter(conn, config, rejects, bulk, full, deduplicator)) {
+                    // Chunks whose rows (of this writer) are all added but maybe not committed yet.
+                    List<Long> uncommitted = new ArrayList<>();
+                    int reportedWritten = 0;
+                    int reportedUnchanged = 0;
+                    int reportedDuplicates = 0;
+                    Chunk<Parsed> chunk;
+                    while ((chunk = take(rows)) != null && chunk.seq() >= 0) {
+                        int batchesBefore = writer.getBatches();
+                        for (Line<Parsed> row : chunk.lines()) {
+                            Parsed parsed = row.value();
+                            writer.add(row.number(), parsed.movie(), parsed.contentHash());
+                        }
+                        if (writer.getBatches() != batchesBefore) {
+                            // A batch was committed while adding: every earlier chunk is in it.
+                            uncommitted.forEach(this::partDone);
+                            uncommitted.clear();
+                        }
+                        if (writer.getPending() == 0) {
+                            partDone(chunk.seq());
+                        } else {
+                            uncommitted.add(chunk.seq());
+                        }
+                        written.add(writer.getWritten() - reportedWritten);
+                        reportedWritten = writer.getWritten();
+                        unchanged.add(writer.getUnchanged() - reportedUnchanged);
+                        reportedUnchanged = writer.getUnchanged();
+                        duplicates.add(writer.getDuplicates() - reportedDuplicates);
+                        reportedDuplicates = writer.getDuplicates();
+                    }
+                    writer.flush();
+                    uncommitted.forEach(this::partDone);
+                    written.add(writer.getWritten() - reportedWritten);
+                    unchanged.add(writer.getUnchanged() - reportedUnchanged);
+                    duplicates.add(writer.getDuplicates() - reportedDuplicates);
+                    lookupNanos.add(writer.getLookupNanos());
+                    batches.add(writer.getBatches());
+                    retriedBatches.add(writer.getRetriedBatches());
+                    bindNanos.add(writer.getBindNanos());
+                    executeNanos.add(writer.getExecuteNanos());
+                    commitNanos.add(writer.getCommitNanos());
+                }
+            }));
+        }
+
+        Thread progress = startProgress(startNanos, startOffset, fileSize, rejects);
+        long readStart = System.nanoTime();
+        try (CsvReader csv = resumeFrom != null ? CsvReader.open(csvPath, resumeFrom) : CsvReader.open(csvPath)) {
+            if (resumeFrom != null) {
+                System.out.println("Resuming an interrupted import of " + csvPath + " from line " + resumeFrom.line() + ".");
+            } else {
+                csv.next(); // header
+            }
+            long seq = 0;
+            List<Line<String[]>> chunk = new ArrayList<>(CHUNK_ROWS);
+            while (failure.get() == null && csv.next()) {
+                String[] fields = new String[csv.fieldCount()];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = csv.get(i);
+                }
+                chunk.add(new Line<>(csv.lineNumber(), fields));
+                if (chunk.size() == CHUNK_ROWS) {
+                    submit(records, seq++, chunk, csv.position());
+                    chunk = new ArrayList<>(CHUNK_ROWS);
+                }
+            }
+            if (!chunk.isEmpty()) submit(records, seq, chunk, csv.position());
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            readNanos.add(System.nanoTime() - readStart - readerWaitNanos.sum());
+            for (int i = 0; i < parserThreads; i++) put(records, new Chunk<>(-1, List.of()));
+            joinAll(threads);
+            progress.interrupt();
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            synchronized (this) {
+                rejects.flush();
+                checkpoint.save(resumePoint, true);
+            }
+        }
+        if (error instanceof SQLException e) throw e;
+        if (error instanceof IOException e) throw e;
+        if (error instanceof RuntimeException e) throw e;
+        if (error != null) throw new IllegalStateException("Import failed", error);
+        checkpoint.delete();
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.printf("%sBatch size %d, %d parsers, %d writers: %d rows read, %d written in %d batches (%d retried row by row), "
+                        + "%d unchanged, %d duplicates, %d rejected, %.0f rows/s%n",
+                bulk ? "Bulk load. " : "", MovieBatchWriter.batchSize(config, bulk), parserThreads, writerThreads, rowsRead.sum(),
+                written.sum(), batches.sum(), retriedBatches.sum(), unchanged.sum(), duplicates.sum(),
+                rejects.count() - duplicates.sum(), rowsRead.sum() * 1000.0 / Math.max(elapsedMillis, 1));
+        if (deduplicator != null) {
+            System.out.printf("Duplicate check: %d probable duplicates looked up in Movies, %d of them false positives%n",
+                    deduplicator.getDatabaseChecks(), deduplicator.getFalsePositives());
+        }
+        System.out.printf("Time in seconds: read %.1f, parse %.1f, look up hashes and duplicates %.1f, bind %.1f, "
+                        + "executeBatch %.1f, commit %.1f; the reader waited %.1f for parsers%n",
+                readNanos.sum() / 1e9, parseNanos.sum() / 1e9, lookupNanos.sum() / 1e9, bindNanos.sum() / 1e9,
+                executeNanos.sum() / 1e9, commitNanos.sum() / 1e9, readerWaitNanos.sum() / 1e9);
+        return new Result(written.intValue(), unchanged.intValue(), duplicates.intValue(),
+                rejects.count() - duplicates.intValue(), elapsedMillis);
+    }
+
+    private void submit(BlockingQueue<Chunk<String[]>> records, long seq, List<Line<String[]>> lines, CsvReader.Position end) {
+        synchronized (this) {
+            chunkEnds.put(seq, end);
+        }
+        rowsRead.add(lines.size());
+        bytesRead = end.byteOffset();
+        long waitStart = System.nanoTime();
+        put(records, new Chunk<>(seq, lines));
+        readerWaitNanos.add(System.nanoTime() - waitStart);
+    }
+
+    // Prints a progress line every progressIntervalMillis until interrupted. The ETA extrapolates
+    // the read rate (in bytes, so it holds for any row length) over the rest of the file.
+    private Thread startProgress(long startNanos, long startOffset, long fileSize, RejectsFile rejects) {
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(progressIntervalMillis);
+                    double seconds = (System.nanoTime() - startNanos) / 1e9;
+                    long bytes = bytesRead;
+                    double bytesPerSecond = (bytes - startOffset) / seconds;
+                    String eta = bytesPerSecond > 0 ? formatSeconds((fileSize - bytes) / bytesPerSecond) : "unknown";
+                    System.out.printf("%.1f%% of the file read: %d rows (%.0f rows/s), %d written, %d unchanged, "
+                                    + "%d duplicates, %d rejected; ETA %s%n",
+                            fileSize == 0 ? 100.0 : bytes * 100.0 / fileSize, rowsRead.sum(), rowsRead.sum() / seconds,
+                            written.sum(), unchanged.sum(), duplicates.sum(), rejects.count() - duplicates.sum(), eta);
+                }
+            } catch (InterruptedException e) {
+                // import finished
+            }
+        }, "import-progress");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static String formatSeconds(double seconds) {
+        long total = Math.round(seconds);
+        return total >= 60 ? (total / 60) + " min " + (total % 60) + " s" : total + " s";
+    }
+
+    // Splits a chunk among the writers by title (or source key), keeping file order within each part.
+    private void dispatch(Chunk<Parsed> chunk, List<BlockingQueue<Chunk<Parsed>>> writerQueues, boolean byTitle) {
+        List<List<Line<Parsed>>> parts = new ArrayList<>(writerQueues.size());
+        for (int i = 0; i < writerQueues.size(); i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (Line<Parsed> line : chunk.lines()) {
+            MovieRecord movie = line.value().movie();
+            String key = byTitle ? ImportDeduplicator.keyOf(movie) : movie.sourceKey();
+            parts.get(Math.floorMod(key.hashCode(), parts.size())).add(line);
+        }
+        int used = (int) parts.stream().filter(part -> !part.isEmpty()).count();
+        if (used == 0) {
+            chunkDone(chunk.seq());
+            return;
+        }
+        synchronized (this) {
+            partsLeft.put(chunk.seq(), used);
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            if (!parts.get(i).isEmpty()) put(writerQueues.get(i), new Chunk<>(chunk.seq(), parts.get(i)));
+        }
+    }
+
+    // One writer's part of chunk seq is committed, rejected or unchanged.
+    private synchronized void partDone(long seq) {
+        int left = partsLeft.merge(seq, -1, Integer::sum);
+        if (left == 0) {
+            partsLeft.remove(seq);
+            chunkDone(seq);
+        }
+    }
+
+    // Every record of chunk seq is committed, rejected or unchanged.
+    private synchronized void chunkDone(long seq) {
+        doneChunks.add(seq);
+        boolean advanced = false;
+        while (doneChunks.remove(firstUndoneChunk)) {
+            resumePoint = chunkEnds.remove(firstUndoneChunk++);
+            advanced = true;
+        }
+        if (advanced) {
+            try {
+                rejects.flush();
+                checkpoint.save(resumePoint, false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static MovieRecord parseOrReject(RowParser parser, Line<String[]> record, RejectsFile rejects) {
+        try {
+            try {
+                return parser.parse(record.value());
+            } catch (Rejected e) {
+                rejects.reject(record.number(), RejectsFile.STAGE_PARSE, e.column, e.getMessage(), e.title);
+            } catch (RuntimeException e) {
+                rejects.reject(record.number(), RejectsFile.STAGE_PARSE, null, "Parsing error: " + e, null);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private Thread start(String name, Stage stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (UncheckedIOException e) {
+                failure.compareAndSet(null, e.getCause());
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    // Blocks while the queue is full (backpressure), giving up once another stage has failed.
+    private <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    // The next chunk, or null once another stage has failed.
+    private <T> T take(BlockingQueue<T> queue) {
+        try {
+            T item;
+            while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (failure.get() != null) return null;
+            }
+            return item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+            return null;
+        }
+    }
+
+    private void joinAll(List<Thread> threads) {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+                return;
+            }
+        }
+    }
+}
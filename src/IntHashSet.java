@@ -0,0 +1,111 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of ints backed by one open-addressing int[] (linear probing), so membership checks
+ * don't box and a few thousand ids cost a few KB. Not thread-safe.
+ */
+public final class IntHashSet {
+
+    private static final int EMPTY = 0;  // 0 itself is tracked by hasZero
+
+    private int[] slots;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    public IntHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        slots = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY) return hasZero;
+        for (int i = index(value); ; i = (i + 1) & mask) {
+            if (slots[i] == value) return true;
+            if (slots[i] == EMPTY) return false;
+        }
+    }
+
+    /** Returns false if the value was already present. */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        if ((size + 1) * 2 > slots.length) grow();
+        int i = index(value);
+        for (; slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (slots[i] == value) return false;
+        }
+        slots[i] = value;
+        size++;
+        return true;
+    }
+
+    /** Returns false if the value was not present. */
+    public boolean remove(int value) {
+        if (value == EMPTY) {
+            boolean removed = hasZero;
+            hasZero = false;
+            return removed;
+        }
+        int i = index(value);
+        while (slots[i] != value) {
+            if (slots[i] == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+        // Backward-shift deletion: pull later entries of the probe chain into the gap so lookups never need tombstones.
+        int gap = i;
+        for (int j = (gap + 1) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+            int home = index(slots[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                slots[gap] = slots[j];
+                gap = j;
+            }
+        }
+        slots[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (hasZero) action.accept(EMPTY);
+        for (int value : slots) {
+            if (value != EMPTY) action.accept(value);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+        hasZero = false;
+    }
+
+    private int index(int value) {
+        int mixed = value * 0x9E3779B9;
+        return (mixed ^ (mixed >>> 16)) & mask;
+    }
+
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        mask = slots.length - 1;
+        for (int value : old) {
+            if (value == EMPTY) continue;
+            int i = index(value);
+            while (slots[i] != EMPTY) i = (i + 1) & mask;
+            slots[i] = value;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind queue for Like/Unlike clicks.
+ *
+ * A click only records the state the user wants for (review, user). Clicks on the same review
+ * within likes.flushWindowMs coalesce: the last one wins, and a like followed by an unlike (or
+ * the reverse) cancels out without touching the database. When the window closes, everything
+ * pending is written by one background thread in a single transaction of JDBC batches
+ * (ReviewRepository.applyLikeChanges). If that transaction fails, the changes are retried one by
+ * one so a single bad row (e.g. a review deleted meanwhile) doesn't lose the rest. Each click's
+ * future tells the caller whether its change made it, so the UI can undo a change that didn't.
+ *
+ * Pending changes are flushed when MovieDetailsDialog closes and before the connection pool
+ * shuts down at exit. Readers that must see them call flushAsync() first.
+ */
+public final class LikeWriteQueue {
+
+    private static final class Holder {
+        static final LikeWriteQueue SHARED = create();
+    }
+
+    /** The application-wide queue. */
+    public static LikeWriteQueue shared() {
+        return Holder.SHARED;
+    }
+
+    // How long exit waits for the last flush before the pool shuts down under it.
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MS = 10_000;
+
+    private record Key(int reviewId, int userId) {
+    }
+
+    private record Change(boolean liked, CompletableFuture<Boolean> done) {
+    }
+
+    private final long flushWindowMs;
+    private final int batchSize;
+    // One thread, so flushes never overlap and a flushAsync() runs after every earlier flush.
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "like-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // (review, user) -> the state to write. Guarded by this.
+    private Map<Key, Change> pending = new LinkedHashMap<>();
+
+    private final LongAdder toggles = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public LikeWriteQueue(Properties config) {
+        this.flushWindowMs = Math.max(0, DatabaseConnector.longProperty(config, "likes.flushWindowMs", 2_000));
+        this.batchSize = Math.max(1, DatabaseConnector.intProperty(config, "likes.batchSize", 500));
+    }
+
+    private static LikeWriteQueue create() {
+        LikeWriteQueue queue = new LikeWriteQueue(DatabaseConnector.loadConfig());
+        DatabaseConnector.runBeforeShutdown(queue::shutdown);
+        return queue;
+    }
+
+    /**
+     * Records that userId now likes (or no longer likes) reviewId. Never blocks on the database.
+     * The future completes with true once the database has that state, or false if the write
+     * was given up (the database keeps the state it had before the click).
+     */
+    public CompletableFuture<Boolean> submit(int reviewId, int userId, boolean liked) {
+        toggles.increment();
+        Key key = new Key(reviewId, userId);
+        Change previous;
+        synchronized (this) {
+            previous = pending.get(key);
+            if (previous == null) {
+                if (pending.isEmpty()) {
+                    writer.schedule(this::flush, flushWindowMs, TimeUnit.MILLISECONDS);
+                }
+                Change change = new Change(liked, new CompletableFuture<>());
+                pending.put(key, change);
+                return change.done();
+            }
+            if (previous.liked() == liked) {
+                return previous.done();
+            }
+            // Back to the state the database already has: nothing to write.
+            pending.remove(key);
+            cancelled.increment();
+        }
+        previous.done().complete(true);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /** Writes everything pending now; completes once it (and any flush before it) is in the database. */
+    public CompletableFuture<Void> flushAsync() {
+        return CompletableFuture.runAsync(this::flush, writer);
+    }
+
+    // Flushes on the writer thread, so it never overlaps a flush already running there, then stops it.
+    private void shutdown() {
+        try {
+            flushAsync().get(SHUTDOWN_FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("Gave up waiting for the last like flush after " + SHUTDOWN_FLUSH_TIMEOUT_MS + " ms.");
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writer.shutdownNow();
+        }
+        System.out.println("Like " + getStats());
+    }
+
+    // Runs on the writer thread only.
+    private void flush() {
+        Map<Key, Change> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        List<ReviewRepository.LikeChange> changes = new ArrayList<>(batch.size());
+        List<CompletableFuture<Boolean>> done = new ArrayList<>(batch.size());
+        for (Map.Entry<Key, Change> entry : batch.entrySet()) {
+            changes.add(new ReviewRepository.LikeChange(entry.getKey().reviewId(), entry.getKey().userId(), entry.getValue().liked()));
+            done.add(entry.getValue().done());
+        }
+        flushes.increment();
+        try {
+            ReviewRepository.applyLikeChanges(changes, batchSize);
+            written.add(changes.size());
+            done.forEach(future -> future.complete(true));
+        } catch (SQLException e) {
+            System.err.println("Batched like write failed (" + e.getMessage() + "); retrying " + changes.size() + " changes one by one.");
+            for (int i = 0; i < changes.size(); i++) {
+                ReviewRepository.LikeChange change = changes.get(i);
+                try {
+                    ReviewRepository.setLiked(change.reviewId(), change.userId(), change.liked());
+                    written.increment();
+                    done.get(i).complete(true);
+                } catch (SQLException rowError) {
+                    failures.increment();
+                    System.err.println("Dropping like change " + change + ": " + rowError.getMessage());
+                    done.get(i).complete(false);
+                }
+            }
+        }
+    }
+
+    public Stats getStats() {
+        int queued;
+        synchronized (this) {
+            queued = pending.size();
+        }
+        return new Stats(toggles.sum(), cancelled.sum(), written.sum(), flushes.sum(), failures.sum(), queued);
+    }
+
+    public record Stats(long toggles, long cancelled, long written, long flushes, long failures, int pending) {
+        @Override
+        public String toString() {
+            return String.format("queue[toggles=%d, cancelledOut=%d, rowsWritten=%d, flushes=%d, failures=%d, pending=%d]",
+                    toggles, cancelled, written, flushes, failures, pending);
+        }
+    }
+}
@@ -1,10 +1,6 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 
 public class LoginDialog extends JDialog {
     private JTextField tfUsername;
@@ -50,32 +46,28 @@ public class LoginDialog extends JDialog {
         String username = tfUsername.getText().trim();
         String password = new String(pfPassword.getPassword());
 
-        // --- MODIFIED: The SQL query now also fetches the profile picture path ---
-        String sql = "SELECT user_id, profile_picture_path FROM Users WHERE username = ? AND password_hash = ?";
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, username);
-            pstmt.setString(2, password);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                this.loggedInUserId = rs.getInt("user_id");
+        // The login button stays disabled while the query runs so a double-click can't log in twice.
+        JButton btnLogin = (JButton) e.getSource();
+        btnLogin.setEnabled(false);
+        DataAccess.supply(() -> UserRepository.authenticate(username, password)).whenCompleteAsync((user, error) -> {
+            btnLogin.setEnabled(true);
+            if (error != null) {
+                Throwable ex = DataAccess.unwrap(error);
+                JOptionPane.showMessageDialog(this, "Database Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                this.succeeded = false;
+                ex.printStackTrace();
+            } else if (user != null) {
+                this.loggedInUserId = user.userId();
                 this.loggedInUsername = username;
                 // --- NEW: Store the fetched path ---
-                this.profilePicPath = rs.getString("profile_picture_path");
+                this.profilePicPath = user.profilePicturePath();
                 this.succeeded = true;
                 dispose();
             } else {
                 JOptionPane.showMessageDialog(this, "Invalid username or password", "Login Failed", JOptionPane.ERROR_MESSAGE);
                 this.succeeded = false;
             }
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Database Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            this.succeeded = false;
-            ex.printStackTrace();
-        }
+        }, DataAccess.EDT);
     }
 
     public boolean isSucceeded() { return succeeded; }
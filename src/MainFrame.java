@@ -1,17 +1,22 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumn;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.File;
-import java.sql.*;
-import java.util.ArrayList;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 public class MainFrame extends JFrame {
@@ -20,11 +25,27 @@ public class MainFrame extends JFrame {
     private String currentUsername;
 
     private JTable movieTable;
-    private DefaultTableModel tableModel;
+    private MediaTableModel tableModel;
     private JTextField searchField;
     private JLabel profilePictureLabel;
+    private String shownPicturePath;  // the latest picture asked for, EDT only
     private JComboBox<String> mediaTypeComboBox;
     private JComboBox<String> genreComboBox;
+    // Title counts of the genres currently in genreComboBox, shown next to each name.
+    private Map<String, Integer> genreCounts = Collections.emptyMap();
+    private boolean updatingGenreFilter;
+    // Search-as-you-type: the search runs once typing has paused for SEARCH_DEBOUNCE_MS.
+    private static final int SEARCH_DEBOUNCE_MS = 150;
+    private Timer searchDebounce;
+    // The user's watchlist, loaded once after login and kept current by add/remove; drives the Action column.
+    private final IntHashSet watchlistIds = new IntHashSet();
+    // Bumped on every table reload so a slow watchlist query can't overwrite a newer listing.
+    private int tableGeneration;
+    // Poster thumbnails in the table, fetched only for rows on or near the screen.
+    private static final int THUMB_WIDTH = 46;
+    private static final int THUMB_HEIGHT = 68;
+    private static final int THUMBNAIL_WORKERS = 4;
+    private final ThumbnailFetcher thumbnails;
 
     public MainFrame(int userId, String username, String profilePicPath) {
         this.currentUserId = userId;
@@ -35,38 +56,44 @@ public class MainFrame extends JFrame {
         setLocationRelativeTo(null);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        String[] columnNames = {"Title", "Year", "Director", "Avg. Rating", "Action"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 4;
-            }
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 3) {
-                    return Double.class;
-                }
-                return super.getColumnClass(columnIndex);
-            }
-        };
+        // Rows are paged in lazily and already sorted by title, so there is no row sorter:
+        // sorting in the view would force every page of the catalog to load.
+        tableModel = new MediaTableModel(this::showDatabaseError, watchlistIds::contains);
         movieTable = new JTable(tableModel);
-        movieTable.setAutoCreateRowSorter(true);
 
         movieTable.getColumn("Action").setCellRenderer(new ButtonRenderer());
         movieTable.getColumn("Action").setCellEditor(new ButtonEditor(new JCheckBox()));
 
+        // --- NEW: poster thumbnail column ---
+        thumbnails = new ThumbnailFetcher(PosterCache.shared(), THUMB_WIDTH, THUMB_HEIGHT, THUMBNAIL_WORKERS, this::repaintPosterColumn);
+        movieTable.setRowHeight(THUMB_HEIGHT + 4);
+        TableColumn posterColumn = movieTable.getColumn("Poster");
+        posterColumn.setCellRenderer(new ThumbnailRenderer());
+        posterColumn.setMinWidth(THUMB_WIDTH + 8);
+        posterColumn.setMaxWidth(THUMB_WIDTH + 8);
+        tableModel.addTableModelListener(e -> {
+            if (e.getLastRow() == Integer.MAX_VALUE) {
+                thumbnails.cancelAll(); // whole table replaced: queued rows mean something else now
+            }
+            // The table itself hears about the change after this listener, so look at the viewport afterwards.
+            SwingUtilities.invokeLater(this::updateThumbnailViewport);
+        });
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                thumbnails.shutdown();
+            }
+        });
+
         movieTable.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent e) {
                 if (e.getClickCount() == 2) {
                     int viewRow = movieTable.getSelectedRow();
                     if (viewRow >= 0) {
                         int modelRow = movieTable.convertRowIndexToModel(viewRow);
-                        String movieTitle = (String) tableModel.getValueAt(modelRow, 0);
-                        String selectedType = getSelectedMediaTypeForDB();
-                        int movieId = getMovieIdByTitle(movieTitle, selectedType);
-                        
-                        if (movieId != -1) {
-                            MovieDetailsDialog detailsDialog = new MovieDetailsDialog(MainFrame.this, movieId, movieTitle, currentUserId);
+                        MediaItem item = tableModel.getItem(modelRow);
+                        if (item != null) {
+                            MovieDetailsDialog detailsDialog = new MovieDetailsDialog(MainFrame.this, item.movieId(), item.title(), item.posterLink(), currentUserId);
                             detailsDialog.setVisible(true);
                         }
                     }
@@ -94,6 +121,15 @@ public class MainFrame extends JFrame {
         String[] mediaTypes = {"Movies", "Anime"};
         mediaTypeComboBox = new JComboBox<>(mediaTypes);
         genreComboBox = new JComboBox<>();
+        genreComboBox.addItem("All Genres");
+        genreComboBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                Integer count = genreCounts.get(value);
+                Object text = count == null ? value : value + " (" + count + ")";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
         populateGenreFilter();
         searchPanel.add(new JLabel("Category:"));
         searchPanel.add(mediaTypeComboBox);
@@ -109,7 +145,9 @@ public class MainFrame extends JFrame {
         topPanel.add(searchPanel, BorderLayout.CENTER);
         JPanel mainPanel = new JPanel(new BorderLayout());
         mainPanel.add(topPanel, BorderLayout.NORTH);
-        mainPanel.add(new JScrollPane(movieTable), BorderLayout.CENTER);
+        JScrollPane tableScrollPane = new JScrollPane(movieTable);
+        tableScrollPane.getViewport().addChangeListener(e -> updateThumbnailViewport());
+        mainPanel.add(tableScrollPane, BorderLayout.CENTER);
         JPanel westPanel = new JPanel(new BorderLayout());
         westPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
         profilePictureLabel = new JLabel();
@@ -128,7 +166,28 @@ public class MainFrame extends JFrame {
         // Action Listeners
         fetchAllButton.addActionListener(e -> fetchAllMedia());
         viewWatchlistButton.addActionListener(e -> viewWatchlist());
-        searchButton.addActionListener(e -> performSearch());
+        searchButton.addActionListener(e -> {
+            searchDebounce.stop();
+            performSearch();
+        });
+        searchDebounce = new Timer(SEARCH_DEBOUNCE_MS, e -> performSearch());
+        searchDebounce.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchDebounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchDebounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchDebounce.restart();
+            }
+        });
         clearButton.addActionListener(e -> {
             searchField.setText("");
             genreComboBox.setSelectedItem("All Genres");
@@ -136,7 +195,10 @@ public class MainFrame extends JFrame {
         addMovieButton.addActionListener(e -> {
             AddMovieDialog addDlg = new AddMovieDialog(this);
             addDlg.setVisible(true);
-            if (addDlg.isMovieAdded()) fetchAllMedia();
+            if (addDlg.isMovieAdded()) {
+                populateGenreFilter(); // the cached catalog already includes the new title
+                fetchAllMedia();
+            }
         });
         profileButton.addActionListener(e -> openProfileDialog());
         logoutButton.addActionListener(e -> {
@@ -150,11 +212,22 @@ public class MainFrame extends JFrame {
             }
         });
 
-        genreComboBox.addActionListener(e -> fetchAllMedia());
-        mediaTypeComboBox.addActionListener(e -> fetchAllMedia());
+        genreComboBox.addActionListener(e -> {
+            if (!updatingGenreFilter) performSearch();
+        });
+        mediaTypeComboBox.addActionListener(e -> {
+            populateGenreFilter();
+            performSearch();
+        });
         
         loadProfileThumbnail(profilePicPath);
+        loadWatchlistIds();
         fetchAllMedia(); 
+        // Built once per run; until it is ready, searches fall back to a LIKE query in the database.
+        DataAccess.run(TitleIndex::load).exceptionally(error -> {
+            DataAccess.unwrap(error).printStackTrace();
+            return null;
+        });
     }
     
     // --- METHOD MODIFIED to include a blocklist ---
@@ -164,34 +237,40 @@ public class MainFrame extends JFrame {
             "boys love", "ecchi", "erotica", "girls love", "hentai"
         ));
 
-        Set<String> genres = new HashSet<>();
-        String sql = "SELECT genres FROM Movies WHERE genres IS NOT NULL";
-        
-        try (Connection conn = DatabaseConnector.getConnection(); 
-             Statement stmt = conn.createStatement(); 
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                String[] genreArray = rs.getString("genres").split("\\s*,\\s*");
-                for (String genre : genreArray) {
-                    String trimmedGenre = genre.trim();
-                    // Check if the trimmed, lowercase genre is in the blocklist
-                    if (!trimmedGenre.isEmpty() && !blockedGenres.contains(trimmedGenre.toLowerCase())) {
-                        genres.add(trimmedGenre);
-                    }
+        // Genres come from the application-wide GenreCatalog (memory, then disk), so this
+        // normally doesn't query the database at all. Only genres of the selected media type are listed.
+        String mediaType = getSelectedMediaTypeForDB();
+        DataAccess.supply(() -> GenreCatalog.getGenreCounts(mediaType)).whenCompleteAsync((allGenres, error) -> {
+            if (error != null) {
+                DataAccess.unwrap(error).printStackTrace();
+                return;
+            }
+            if (!mediaType.equals(getSelectedMediaTypeForDB())) {
+                return; // the user switched category again; that call fills the list
+            }
+            Map<String, Integer> genres = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> genre : allGenres.entrySet()) {
+                // Check if the lowercase genre is in the blocklist
+                if (!blockedGenres.contains(genre.getKey().toLowerCase())) {
+                    genres.put(genre.getKey(), genre.getValue());
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        List<String> sortedGenres = new ArrayList<>(genres);
-        Collections.sort(sortedGenres);
-        
-        genreComboBox.addItem("All Genres");
-        for (String genre : sortedGenres) {
-            genreComboBox.addItem(genre);
-        }
+
+            String selectedGenre = getSelectedGenre();
+            updatingGenreFilter = true;
+            genreComboBox.removeAllItems();
+            genreComboBox.addItem("All Genres");
+            for (String genre : genres.keySet()) {
+                genreComboBox.addItem(genre);
+            }
+            genreCounts = genres;
+            boolean keepSelection = selectedGenre != null && genres.containsKey(selectedGenre);
+            genreComboBox.setSelectedItem(keepSelection ? selectedGenre : "All Genres");
+            updatingGenreFilter = false;
+            if (selectedGenre != null && !keepSelection) {
+                performSearch(); // the old genre doesn't exist for this category; drop the genre filter
+            }
+        }, DataAccess.EDT);
     }
     
     private String getSelectedMediaTypeForDB() {
@@ -199,35 +278,9 @@ public class MainFrame extends JFrame {
     }
 
     private void fetchAllMedia() {
-        String selectedType = getSelectedMediaTypeForDB();
-        String selectedGenre = (String) genreComboBox.getSelectedItem();
-        tableModel.setRowCount(0);
-
-        String sql;
-        if (selectedGenre == null || "All Genres".equals(selectedGenre)) {
-            sql = "SELECT m.title, m.release_year, m.director, " +
-                  "(SELECT AVG(r.rating) FROM Reviews r WHERE r.movie_id = m.movie_id) as avg_rating " +
-                  "FROM Movies m WHERE m.media_type = ? ORDER BY m.title";
-        } else {
-            sql = "SELECT m.title, m.release_year, m.director, " +
-                  "(SELECT AVG(r.rating) FROM Reviews r WHERE r.movie_id = m.movie_id) as avg_rating " +
-                  "FROM Movies m WHERE m.media_type = ? AND m.genres LIKE ? ORDER BY m.title";
-        }
-        
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, selectedType);
-            if (selectedGenre != null && !"All Genres".equals(selectedGenre)) {
-                pstmt.setString(2, "%" + selectedGenre + "%");
-            }
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                double avgRating = rs.getDouble("avg_rating");
-                Double ratingObject = rs.wasNull() ? null : avgRating;
-                tableModel.addRow(new Object[]{rs.getString("title"), rs.getInt("release_year"), rs.getString("director"), ratingObject, "Add"});
-            }
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Database Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        MovieRepository.CatalogFilter filter = new MovieRepository.CatalogFilter(getSelectedMediaTypeForDB(), getSelectedGenre(), null);
+        tableGeneration++;
+        tableModel.showCatalog(filter, null);
     }
     
     private void performSearch() {
@@ -237,42 +290,59 @@ public class MainFrame extends JFrame {
             return;
         }
         
-        String selectedType = getSelectedMediaTypeForDB();
-        String selectedGenre = (String) genreComboBox.getSelectedItem();
-        tableModel.setRowCount(0);
-
-        String sql;
-        if (selectedGenre == null || "All Genres".equals(selectedGenre)) {
-            sql = "SELECT m.title, m.release_year, m.director, " +
-                  "(SELECT AVG(r.rating) FROM Reviews r WHERE r.movie_id = m.movie_id) as avg_rating " +
-                  "FROM Movies m WHERE m.media_type = ? AND UPPER(m.title) LIKE UPPER(?) ORDER BY m.title";
-        } else {
-            sql = "SELECT m.title, m.release_year, m.director, " +
-                  "(SELECT AVG(r.rating) FROM Reviews r WHERE r.movie_id = m.movie_id) as avg_rating " +
-                  "FROM Movies m WHERE m.media_type = ? AND UPPER(m.title) LIKE UPPER(?) AND m.genres LIKE ? ORDER BY m.title";
+        String emptyMessage = "No items found matching your search.";
+        tableGeneration++;
+        int[] matches = TitleIndex.search(getSelectedMediaTypeForDB(), getSelectedGenre(), searchTerm);
+        if (matches != null) {
+            tableModel.showSearchResults(matches, emptyMessage);
+            return;
         }
+        MovieRepository.CatalogFilter filter = new MovieRepository.CatalogFilter(getSelectedMediaTypeForDB(), getSelectedGenre(), searchTerm);
+        tableModel.showCatalog(filter, emptyMessage);
+    }
 
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, selectedType);
-            pstmt.setString(2, "%" + searchTerm + "%");
-            if (selectedGenre != null && !"All Genres".equals(selectedGenre)) {
-                pstmt.setString(3, "%" + selectedGenre + "%");
-            }
-            ResultSet rs = pstmt.executeQuery();
-            boolean found = false;
-            while (rs.next()) {
-                found = true;
-                double avgRating = rs.getDouble("avg_rating");
-                Double ratingObject = rs.wasNull() ? null : avgRating;
-                tableModel.addRow(new Object[]{rs.getString("title"), rs.getInt("release_year"), rs.getString("director"), ratingObject, "Add"});
-            }
-            if (!found) {
-                tableModel.addRow(new Object[]{"No items found matching your search.", null, null, null, ""});
-            }
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Database Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    // Tells the fetcher which rows are on screen and prefetches the ones just past either edge.
+    private void updateThumbnailViewport() {
+        Rectangle visible = movieTable.getVisibleRect();
+        int first = movieTable.rowAtPoint(new Point(0, visible.y));
+        if (first < 0) return; // empty table
+        int last = movieTable.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+        if (last < 0) last = movieTable.getRowCount() - 1;
+        thumbnails.setViewport(first, last);
+        for (int i = 1; i <= ThumbnailFetcher.MARGIN_ROWS; i++) {
+            prefetchThumbnail(last + i);
+            prefetchThumbnail(first - i);
         }
     }
+
+    // Only rows whose page is already loaded; this never makes the model fetch more rows.
+    private void prefetchThumbnail(int row) {
+        MediaItem item = tableModel.peekItem(row);
+        if (item == null || item.posterLink() == null || item.posterLink().isBlank()) return;
+        PosterCache cache = PosterCache.shared();
+        if (cache.getIfCached(item.posterLink(), THUMB_WIDTH, THUMB_HEIGHT) == null && !cache.isKnownFailure(item.posterLink())) {
+            thumbnails.request(item.posterLink(), row);
+        }
+    }
+
+    // A thumbnail arrived: repaint the visible part of the poster column, whatever rows it now shows.
+    private void repaintPosterColumn() {
+        int column = movieTable.convertColumnIndexToView(MediaTableModel.POSTER_COLUMN);
+        if (column < 0 || movieTable.getRowCount() == 0) return;
+        Rectangle visible = movieTable.getVisibleRect();
+        Rectangle cell = movieTable.getCellRect(0, column, true);
+        movieTable.repaint(cell.x, visible.y, cell.width, visible.height);
+    }
+
+    private void showDatabaseError(Throwable error) {
+        JOptionPane.showMessageDialog(this, "Database Error: " + DataAccess.unwrap(error).getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    // Returns null when "All Genres" is selected.
+    private String getSelectedGenre() {
+        String selectedGenre = (String) genreComboBox.getSelectedItem();
+        return (selectedGenre == null || "All Genres".equals(selectedGenre)) ? null : selectedGenre;
+    }
     
     private void openProfileDialog() {
         ProfileDialog profileDlg = new ProfileDialog(this, currentUserId, currentUsername);
@@ -281,49 +351,60 @@ public class MainFrame extends JFrame {
     }
     
     private void reloadProfileThumbnail() {
-        String sql = "SELECT profile_picture_path FROM Users WHERE user_id = ?";
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, currentUserId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                loadProfileThumbnail(rs.getString("profile_picture_path"));
+        DataAccess.supply(() -> UserRepository.findProfilePicturePath(currentUserId)).whenCompleteAsync((path, error) -> {
+            if (error != null) {
+                DataAccess.unwrap(error).printStackTrace();
+            } else {
+                loadProfileThumbnail(path);
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+        }, DataAccess.EDT);
     }
     
+    // Reads the file off the EDT; a slower read for a path that has since been replaced is dropped.
     private void loadProfileThumbnail(String imagePath) {
-        if (imagePath != null && new File(imagePath).exists()) {
-            ImageIcon icon = new ImageIcon(new ImageIcon(imagePath).getImage().getScaledInstance(60, 60, Image.SCALE_SMOOTH));
-            profilePictureLabel.setIcon(icon);
-            profilePictureLabel.setText("");
-        } else {
-            profilePictureLabel.setIcon(null);
-            profilePictureLabel.setText("No Pic");
-        }
+        shownPicturePath = imagePath;
+        DataAccess.supply(() -> ProfilePictureStore.load(imagePath, ProfilePictureStore.THUMBNAIL_SIZE)).whenCompleteAsync((picture, error) -> {
+            if (!Objects.equals(imagePath, shownPicturePath)) return;
+            if (error != null) {
+                DataAccess.unwrap(error).printStackTrace();
+            }
+            if (picture != null) {
+                profilePictureLabel.setIcon(new ImageIcon(picture));
+                profilePictureLabel.setText("");
+            } else {
+                profilePictureLabel.setIcon(null);
+                profilePictureLabel.setText("No Pic");
+            }
+        }, DataAccess.EDT);
+    }
+
+    private void loadWatchlistIds() {
+        DataAccess.supply(() -> WatchlistRepository.findIdsByUser(currentUserId)).whenCompleteAsync((ids, error) -> {
+            if (error != null) {
+                DataAccess.unwrap(error).printStackTrace(); // rows just show "Add"; adding still works
+                return;
+            }
+            // Merge rather than replace: a click may already have added or removed something.
+            ids.forEach(watchlistIds::add);
+            tableModel.refreshActions();
+        }, DataAccess.EDT);
     }
 
     private void viewWatchlist() {
         String selectedType = getSelectedMediaTypeForDB();
-        String sql = "SELECT m.title, m.release_year, m.director FROM Watchlist w JOIN Movies m ON w.movie_id = m.movie_id WHERE w.user_id = ? AND m.media_type = ? ORDER BY m.title";
-        
-        tableModel.setRowCount(0);
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, currentUserId);
-            pstmt.setString(2, selectedType);
-            ResultSet rs = pstmt.executeQuery();
-            boolean found = false;
-            while (rs.next()) {
-                found = true;
-                tableModel.addRow(new Object[]{rs.getString("title"), rs.getInt("release_year"), rs.getString("director"), null, "Remove"});
+        int generation = ++tableGeneration;
+        tableModel.showMessage("Loading...");
+        DataAccess.supply(() -> WatchlistRepository.findByUser(currentUserId, selectedType)).whenCompleteAsync((items, error) -> {
+            if (generation != tableGeneration) {
+                return; // a newer reload has started since
             }
-            if (!found) {
-                tableModel.addRow(new Object[]{"Your " + selectedType + " watchlist is empty.", null, null, null, ""});
+            if (error != null) {
+                tableModel.showMessage("");
+                showDatabaseError(error);
+                return;
             }
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Database Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+            tableModel.showRows(items, "Remove", "Your " + selectedType + " watchlist is empty.");
+        }, DataAccess.EDT);
     }
     
     public static void main(String[] args) {
@@ -359,19 +440,50 @@ public class MainFrame extends JFrame {
         });
     }
 
-    private int getMovieIdByTitle(String title, String mediaType) {
-        String sql = "SELECT movie_id FROM Movies WHERE title = ? AND media_type = ?";
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, title);
-            pstmt.setString(2, mediaType);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("movie_id");
+    // Draws the cached thumbnail, or a placeholder box while it loads or when there is no poster.
+    class ThumbnailRenderer extends DefaultTableCellRenderer {
+        private BufferedImage image;
+        private String placeholder;
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column);
+            image = null;
+            placeholder = null;
+            String url = (String) value;
+            if (tableModel.peekItem(row) == null) {
+                return this; // message row, or its page is still loading
+            }
+            PosterCache cache = PosterCache.shared();
+            if (url == null || url.isBlank() || cache.isKnownFailure(url)) {
+                placeholder = "No poster";
+            } else {
+                image = cache.getIfCached(url, THUMB_WIDTH, THUMB_HEIGHT);
+                if (image == null) {
+                    placeholder = "...";
+                    thumbnails.request(url, row);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            int x = (getWidth() - THUMB_WIDTH) / 2;
+            int y = (getHeight() - THUMB_HEIGHT) / 2;
+            if (image != null) {
+                g.drawImage(image, x, y, null);
+            } else if (placeholder != null) {
+                g.setColor(Color.DARK_GRAY);
+                g.fillRect(x, y, THUMB_WIDTH, THUMB_HEIGHT);
+                g.setColor(Color.LIGHT_GRAY);
+                g.setFont(getFont().deriveFont(9f));
+                FontMetrics metrics = g.getFontMetrics();
+                g.drawString(placeholder, x + (THUMB_WIDTH - metrics.stringWidth(placeholder)) / 2,
+                        y + (THUMB_HEIGHT + metrics.getAscent()) / 2 - 2);
             }
-        } catch (SQLException ex) { 
-            ex.printStackTrace(); 
         }
-        return -1;
     }
 
     class ButtonRenderer extends JButton implements TableCellRenderer {
@@ -404,15 +516,10 @@ public class MainFrame extends JFrame {
         public Object getCellEditorValue() {
             if (isPushed) {
                 int modelRow = movieTable.convertRowIndexToModel(movieTable.getEditingRow());
-                String movieTitle = (String) tableModel.getValueAt(modelRow, 0);
-                String selectedType = getSelectedMediaTypeForDB();
-                int movieId = getMovieIdByTitle(movieTitle, selectedType);
-                if (movieId != -1) {
-                    if ("Add".equals(label)) addMovieToWatchlist(movieId);
-                    else if ("Remove".equals(label)) {
-                        removeMovieFromWatchlist(movieId);
-                        tableModel.removeRow(modelRow);
-                    }
+                MediaItem item = tableModel.getItem(modelRow);
+                if (item != null) {
+                    if ("Add".equals(label)) addMovieToWatchlist(item.movieId());
+                    else if ("Remove".equals(label)) removeMovieFromWatchlist(item.movieId());
                 }
             }
             isPushed = false;
@@ -420,39 +527,35 @@ public class MainFrame extends JFrame {
         }
         
         private void addMovieToWatchlist(int movieId) {
-            String checkSql = "SELECT 1 FROM Watchlist WHERE user_id = ? AND movie_id = ?";
-            String insertSql = "INSERT INTO Watchlist (watchlist_id, user_id, movie_id) VALUES (watchlist_id_seq.NEXTVAL, ?, ?)";
-            try (Connection conn = DatabaseConnector.getConnection()) {
-                try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                    checkStmt.setInt(1, currentUserId);
-                    checkStmt.setInt(2, movieId);
-                    if (checkStmt.executeQuery().next()) {
-                        JOptionPane.showMessageDialog(button, "This item is already in your watchlist.");
-                        return;
-                    }
+            DataAccess.supply(() -> WatchlistRepository.add(currentUserId, movieId)).whenCompleteAsync((added, error) -> {
+                if (error != null) {
+                    JOptionPane.showMessageDialog(button, "Error adding to watchlist: " + DataAccess.unwrap(error).getMessage());
+                    return;
                 }
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-                    insertStmt.setInt(1, currentUserId);
-                    insertStmt.setInt(2, movieId);
-                    insertStmt.executeUpdate();
+                watchlistIds.add(movieId);
+                tableModel.refreshActions();
+                if (added) {
                     JOptionPane.showMessageDialog(button, "Added to your watchlist!");
+                } else {
+                    JOptionPane.showMessageDialog(button, "This item is already in your watchlist.");
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(button, "Error adding to watchlist: " + ex.getMessage());
-            }
+            }, DataAccess.EDT);
         }
         
         private void removeMovieFromWatchlist(int movieId) {
-            String sql = "DELETE FROM Watchlist WHERE user_id = ? AND movie_id = ?";
-            try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, currentUserId);
-                pstmt.setInt(2, movieId);
-                if (pstmt.executeUpdate() > 0) {
+            DataAccess.supply(() -> WatchlistRepository.remove(currentUserId, movieId)).whenCompleteAsync((removed, error) -> {
+                if (error != null) {
+                    JOptionPane.showMessageDialog(button, "Error removing from watchlist: " + DataAccess.unwrap(error).getMessage());
+                    return;
+                }
+                watchlistIds.remove(movieId);
+                if (removed) {
                     JOptionPane.showMessageDialog(button, "Removed from your watchlist.");
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(button, "Error removing from watchlist: " + ex.getMessage());
-            }
+                // The table may have been reloaded meanwhile, so look the row up by id.
+                tableModel.removeItem(movieId);
+                tableModel.refreshActions();
+            }, DataAccess.EDT);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+/**
+ * One row of the catalog table in MainFrame (movie or anime).
+ * avgRating is null when nobody has reviewed the title yet; posterLink is null when there is no poster.
+ */
+public record MediaItem(int movieId, String title, int releaseYear, String director, Double avgRating, String posterLink) {
+}
@@ -0,0 +1,354 @@
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Table model behind the MainFrame catalog.
+ *
+ * In catalog mode rows are fetched lazily in pages of PAGE_SIZE as the table asks
+ * for them, using keyset pagination on (title, movie_id). Only the MAX_CACHED_PAGES
+ * most recently used pages are kept; evicted pages are fetched again when scrolled
+ * back into view. Until a COUNT(*) comes back the row count is an estimate that grows
+ * one page ahead of what has been loaded, so the scrollbar keeps working.
+ *
+ * In search mode the rows are a fixed list of movie ids from TitleIndex; they are paged in
+ * the same way, but by id, and the row count is exact from the start.
+ *
+ * In list mode (the watchlist) the model simply shows a fixed, already loaded list.
+ *
+ * Every row carries its movie_id (see getItem). Outside list mode the Action column reads
+ * "Remove" or "Add" depending on whether the title is on the user's watchlist.
+ *
+ * The Poster column's value is the row's poster URL; MainFrame's renderer turns it into a
+ * thumbnail, so the model itself never touches images.
+ *
+ * A page that fails to load is asked for again after RETRY_DELAY_MS, doubling each time; after
+ * MAX_PAGE_RETRIES its rows say so instead of "Loading..." until the next reload.
+ */
+public class MediaTableModel extends AbstractTableModel {
+
+    static final int PAGE_SIZE = 100;
+    static final int MAX_CACHED_PAGES = 12;
+    static final int MAX_PAGE_RETRIES = 4;
+    static final int RETRY_DELAY_MS = 1_000;
+
+    private static final String[] COLUMN_NAMES = {"Poster", "Title", "Year", "Director", "Avg. Rating", "Action"};
+    static final int POSTER_COLUMN = 0;
+    static final int TITLE_COLUMN = 1;
+    static final int ACTION_COLUMN = 5;
+
+    private final Consumer<Throwable> errorHandler;
+    private final IntPredicate inWatchlist;
+
+    // --- Catalog mode ---
+    private MovieRepository.CatalogFilter filter;
+    private int[] resultIds;  // search mode: the rows to show, in order
+    private final Map<Integer, List<MediaItem>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<MediaItem>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // pageAnchors.get(p) is the last row of page p-1, i.e. where the keyset query for page p starts.
+    private final Map<Integer, MediaItem> pageAnchors = new HashMap<>();
+    private final Set<Integer> pendingPages = new HashSet<>();
+    private final Map<Integer, Integer> pageFailures = new HashMap<>();  // failed attempts since the page last loaded
+    private int rowCount;
+    private boolean rowCountExact;
+
+    // --- List mode ---
+    private List<MediaItem> fixedRows;
+
+    private String action = "Add";  // list mode only
+    private String emptyMessage;
+    private String message;  // when set, the table shows this single row instead of data
+    private int generation;  // bumped on every reset so late pages from an old query are dropped
+
+    public MediaTableModel(Consumer<Throwable> errorHandler, IntPredicate inWatchlist) {
+        this.errorHandler = errorHandler;
+        this.inWatchlist = inWatchlist;
+    }
+
+    /** Switches to lazily paged catalog mode for the given filter. */
+    public void showCatalog(MovieRepository.CatalogFilter filter, String emptyMessage) {
+        reset("Add", emptyMessage);
+        this.filter = filter;
+        this.message = "Loading...";
+        int expectedGeneration = generation;
+        requestPage(0);
+        DataAccess.supply(() -> MovieRepository.countCatalog(filter)).whenCompleteAsync((count, error) -> {
+            if (expectedGeneration != generation || error != null || rowCountExact) {
+                return; // the estimate keeps working if the count fails
+            }
+            rowCountExact = true;
+            if (message == null) {
+                resizeTo(count);
+            } else {
+                rowCount = count;
+            }
+        }, DataAccess.EDT);
+        fireTableDataChanged();
+    }
+
+    /** Switches to search mode: shows exactly these titles, in this order, paging their rows in by id. */
+    public void showSearchResults(int[] movieIds, String emptyMessage) {
+        reset("Add", emptyMessage);
+        this.resultIds = movieIds;
+        this.rowCount = movieIds.length;
+        this.rowCountExact = true;
+        if (movieIds.length == 0) {
+            this.message = emptyMessage;
+        } else {
+            this.message = "Loading...";
+            requestPage(0);
+        }
+        fireTableDataChanged();
+    }
+
+    /** Switches to list mode with rows that were already loaded. */
+    public void showRows(List<MediaItem> rows, String action, String emptyMessage) {
+        reset(action, emptyMessage);
+        this.fixedRows = new ArrayList<>(rows);
+        this.message = rows.isEmpty() ? emptyMessage : null;
+        fireTableDataChanged();
+    }
+
+    /** Replaces the table contents with a single message row, e.g. "Loading...". */
+    public void showMessage(String message) {
+        reset(action, null);
+        this.message = message;
+        fireTableDataChanged();
+    }
+
+    /** The item at a row, or null for message and not-yet-loaded rows. */
+    public MediaItem getItem(int row) {
+        if (message != null) return null;
+        if (fixedRows != null) return fixedRows.get(row);
+        List<MediaItem> page = pages.get(row / PAGE_SIZE);
+        if (page == null) {
+            requestPage(row / PAGE_SIZE);
+            return null;
+        }
+        int index = row % PAGE_SIZE;
+        return index < page.size() ? page.get(index) : null;
+    }
+
+    /** Like getItem, but never starts a page load; used to prefetch thumbnails next to the viewport. */
+    public MediaItem peekItem(int row) {
+        if (message != null || row < 0 || row >= getRowCount()) return null;
+        if (fixedRows != null) return fixedRows.get(row);
+        List<MediaItem> page = pages.get(row / PAGE_SIZE);
+        int index = row % PAGE_SIZE;
+        return page != null && index < page.size() ? page.get(index) : null;
+    }
+
+    /** Removes a title's row in list mode (used when it is taken off the watchlist). */
+    public void removeItem(int movieId) {
+        if (fixedRows == null || message != null) return;
+        int row = 0;
+        while (row < fixedRows.size() && fixedRows.get(row).movieId() != movieId) row++;
+        if (row == fixedRows.size()) return;
+        fixedRows.remove(row);
+        fireTableRowsDeleted(row, row);
+        if (fixedRows.isEmpty() && emptyMessage != null) {
+            message = emptyMessage;
+            fireTableDataChanged();
+        }
+    }
+
+    /** Repaints the Action column after the watchlist membership changed. */
+    public void refreshActions() {
+        if (getRowCount() > 0) {
+            fireTableChanged(new TableModelEvent(this, 0, getRowCount() - 1, ACTION_COLUMN));
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        if (message != null) return 1;
+        if (fixedRows != null) return fixedRows.size();
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        switch (columnIndex) {
+            case 2: return Integer.class;
+            case 4: return Double.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == ACTION_COLUMN && getItem(row) != null;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (message != null) {
+            return column == TITLE_COLUMN ? message : (column == ACTION_COLUMN ? "" : null);
+        }
+        MediaItem item = getItem(row);
+        if (item == null) {
+            String placeholder = gaveUpOn(row / PAGE_SIZE) ? "Could not load titles." : "Loading...";
+            return column == TITLE_COLUMN ? placeholder : (column == ACTION_COLUMN ? "" : null);
+        }
+        switch (column) {
+            case 0: return item.posterLink();
+            case 1: return item.title();
+            case 2: return item.releaseYear();
+            case 3: return item.director();
+            case 4: return item.avgRating();
+            default:
+                if (fixedRows != null) return action;
+                return inWatchlist.test(item.movieId()) ? "Remove" : "Add";
+        }
+    }
+
+    // --- Paging ---
+
+    private void reset(String action, String emptyMessage) {
+        generation++;
+        this.action = action;
+        this.emptyMessage = emptyMessage;
+        this.filter = null;
+        this.resultIds = null;
+        this.fixedRows = null;
+        this.message = null;
+        pages.clear();
+        pageAnchors.clear();
+        pendingPages.clear();
+        pageFailures.clear();
+        rowCount = 0;
+        rowCountExact = false;
+    }
+
+    private void requestPage(int pageIndex) {
+        if ((filter == null && resultIds == null) || pendingPages.contains(pageIndex)) return;
+        pendingPages.add(pageIndex);
+
+        MovieRepository.CatalogFilter pageFilter = filter;
+        int[] pageIds = resultIds == null ? null
+                : Arrays.copyOfRange(resultIds, pageIndex * PAGE_SIZE, Math.min(resultIds.length, (pageIndex + 1) * PAGE_SIZE));
+        MediaItem anchor = pageAnchors.get(pageIndex);
+        int expectedGeneration = generation;
+        DataAccess.supply(() -> {
+            if (pageIds != null) {
+                return MovieRepository.findByIds(pageIds);
+            }
+            if (pageIndex == 0 || anchor != null) {
+                return MovieRepository.findCatalogPage(pageFilter, anchor, PAGE_SIZE);
+            }
+            // Jumped past the pages we have anchors for (e.g. dragged the scrollbar): fall back to an offset.
+            return MovieRepository.findCatalogPageAt(pageFilter, pageIndex * PAGE_SIZE, PAGE_SIZE);
+        }).whenCompleteAsync((rows, error) -> {
+            if (expectedGeneration != generation) return;
+            if (error != null) {
+                pageFailed(pageIndex, error);
+                return;
+            }
+            pendingPages.remove(pageIndex);
+            pageFailures.remove(pageIndex);
+            pageLoaded(pageIndex, rows);
+        }, DataAccess.EDT);
+    }
+
+    // The page stays pending while it waits, so painting its rows doesn't retry it in a loop.
+    private void pageFailed(int pageIndex, Throwable error) {
+        int failures = pageFailures.merge(pageIndex, 1, Integer::sum);
+        if (pageIndex == 0 && message != null) {
+            // Nothing is shown yet, so there is nothing to page back into; the next reload retries.
+            message = "Could not load titles.";
+            fireTableDataChanged();
+            errorHandler.accept(error);
+            return;
+        }
+        if (failures > MAX_PAGE_RETRIES) {
+            firePageUpdated(pageIndex);
+            errorHandler.accept(error);
+            return;
+        }
+        int expectedGeneration = generation;
+        Timer retry = new Timer(RETRY_DELAY_MS << (failures - 1), e -> {
+            if (expectedGeneration != generation) return;
+            pendingPages.remove(pageIndex);
+            firePageUpdated(pageIndex); // repaints the rows, which asks for the page again if they are in view
+        });
+        retry.setRepeats(false);
+        retry.start();
+    }
+
+    private boolean gaveUpOn(int pageIndex) {
+        return pageFailures.getOrDefault(pageIndex, 0) > MAX_PAGE_RETRIES;
+    }
+
+    private void firePageUpdated(int pageIndex) {
+        int firstRow = pageIndex * PAGE_SIZE;
+        int lastRow = Math.min(getRowCount(), firstRow + PAGE_SIZE) - 1;
+        if (message == null && lastRow >= firstRow) {
+            fireTableRowsUpdated(firstRow, lastRow);
+        }
+    }
+
+    private void pageLoaded(int pageIndex, List<MediaItem> rows) {
+        pages.put(pageIndex, rows);
+        int firstRow = pageIndex * PAGE_SIZE;
+        if (!rows.isEmpty()) {
+            pageAnchors.put(pageIndex + 1, rows.get(rows.size() - 1));
+        }
+
+        int newCount = rowCount;
+        if (resultIds != null) {
+            // Search mode: the count is the number of ids, nothing to estimate.
+        } else if (rows.size() < PAGE_SIZE) {
+            // A short page marks the true end of the result set.
+            newCount = firstRow + rows.size();
+            rowCountExact = true;
+        } else if (!rowCountExact) {
+            // Keep one page of headroom beyond what we have seen so the user can keep scrolling.
+            newCount = Math.max(rowCount, firstRow + 2 * PAGE_SIZE);
+        }
+
+        if (pageIndex == 0 && message != null) {
+            // First page replaces the "Loading..." row.
+            rowCount = newCount;
+            message = rows.isEmpty() ? emptyMessage : null;
+            fireTableDataChanged();
+            return;
+        }
+        resizeTo(newCount);
+        firePageUpdated(pageIndex);
+    }
+
+    // Uses insert/delete events rather than a full data change so the selection and scroll position survive.
+    private void resizeTo(int newCount) {
+        int oldCount = rowCount;
+        rowCount = newCount;
+        if (newCount > oldCount) {
+            fireTableRowsInserted(oldCount, newCount - 1);
+        } else if (newCount < oldCount) {
+            fireTableRowsDeleted(newCount, oldCount - 1);
+        }
+    }
+}
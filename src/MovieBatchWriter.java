@@ -0,0 +1,457 @@
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes imported titles into Movies for DataImporter and AnimeImporter, in chunks.
+ *
+ * Imports are incremental: before a chunk is written, the content_hash of its source keys is
+ * looked up (through the source_key unique index, LOOKUP_KEYS keys per query), and rows whose
+ * hash is unchanged are skipped unless the import is a full one. Only the current chunk's hashes
+ * are ever held in memory.
+ *
+ * Each row is MERGEd on Movies.source_key: a new key is inserted, a known one updated in place
+ * (with its content_hash), so re-running an import never duplicates the catalog. A new key is
+ * first offered to a keyless title with the same media_type, title and year, so titles imported
+ * before source_key existed are adopted rather than copied. Rows that may have existed lose their
+ * Movie_Genres links, for GenreRepository.linkUnlinkedMovies to rebuild from the new genres.
+ *
+ * Rows are buffered up to import.batchSize, then sent with one executeBatch() and committed, so
+ * memory stays the same however large the file is and a bad row late in the file costs at most
+ * its own chunk. If a chunk fails, it is rolled back and retried row by row: the good rows are
+ * committed and each bad one goes to the import's RejectsFile.
+ *
+ * In bulk mode (full catalog rebuilds) rows with a new key skip the MERGE: they get movie_ids
+ * from a MovieIdAllocator block and go in as one array-bound INSERT with the APPEND_VALUES
+ * direct-path hint, committed on its own after the batch's MERGEs; if it fails, only those rows
+ * are retried (through the MERGE). Keyless titles are not adopted in this mode. Direct-path
+ * inserts lock the whole table, so ImportPipeline runs bulk mode with a single writer;
+ * disableSecondaryIndexes / rebuildIndexes keep index upkeep out of the load.
+ *
+ * Not thread-safe: ImportPipeline gives each writer thread its own writer and connection, and
+ * sums up their bind, execute and commit times for its report.
+ */
+public final class MovieBatchWriter implements AutoCloseable {
+
+    static final String MERGE_SQL =
+            "MERGE INTO Movies m USING (SELECT ? AS source_key, ? AS content_hash, ? AS title, ? AS release_year, " +
+            "? AS director, ? AS poster_link, ? AS media_type, ? AS genres, ? AS synopsis, ? AS runtime, ? AS age_rating, " +
+            "? AS external_score, ? AS episodes, ? AS status, ? AS studios, ? AS producers FROM dual) s " +
+            "ON (m.source_key = s.source_key) " +
+            "WHEN MATCHED THEN UPDATE SET m.content_hash = s.content_hash, m.title = s.title, m.release_year = s.release_year, " +
+            "m.director = s.director, m.poster_link = s.poster_link, m.media_type = s.media_type, m.genres = s.genres, " +
+            "m.synopsis = s.synopsis, m.runtime = s.runtime, m.age_rating = s.age_rating, m.external_score = s.external_score, " +
+            "m.episodes = s.episodes, m.status = s.status, m.studios = s.studios, m.producers = s.producers " +
+            "WHEN NOT MATCHED THEN INSERT (movie_id, source_key, content_hash, title, release_year, director, poster_link, " +
+            "media_type, genres, synopsis, runtime, age_rating, external_score, episodes, status, studios, producers) " +
+            "VALUES (movie_id_seq.NEXTVAL, s.source_key, s.content_hash, s.title, s.release_year, s.director, s.poster_link, " +
+            "s.media_type, s.genres, s.synopsis, s.runtime, s.age_rating, s.external_score, s.episodes, s.status, s.studios, s.producers)";
+    static final String ADOPT_SQL =
+            "UPDATE Movies SET source_key = ? WHERE source_key IS NULL AND media_type = ? AND title = ? AND release_year = ? AND ROWNUM = 1";
+    static final String UNLINK_GENRES_SQL =
+            "DELETE FROM Movie_Genres WHERE movie_id = (SELECT movie_id FROM Movies WHERE source_key = ?)";
+    static final String DIRECT_INSERT_SQL =
+            "INSERT /*+ APPEND_VALUES */ INTO Movies (movie_id, source_key, content_hash, title, release_year, director, " +
+            "poster_link, media_type, genres, synopsis, runtime, age_rating, external_score, episodes, status, studios, producers) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String FIND_SECONDARY_INDEXES_SQL =
+            "SELECT index_name FROM user_indexes WHERE table_name = 'MOVIES' AND uniqueness = 'NONUNIQUE' AND status = 'VALID'"
+                    + " AND index_name <> 'IDX_MOVIES_TYPE_UPPER_TITLE'";
+    private static final Pattern ERROR_COLUMN = Pattern.compile("\"MOVIES\"\\.\"(\\w+)\"");
+    // Keys per hash lookup; unused placeholders are bound to NULL, which matches nothing.
+    private static final int LOOKUP_KEYS = 1_000;
+    private static final String FIND_CONTENT_HASHES_SQL =
+            "SELECT source_key, content_hash FROM Movies WHERE source_key IN (" + "?, ".repeat(LOOKUP_KEYS - 1) + "?)";
+
+    // newKey: the source key is not in Movies yet (so it may adopt a keyless title); set by flush().
+    private record Row(long line, MovieRecord movie, String contentHash, boolean newKey) {
+    }
+
+    private final Connection conn;
+    private final PreparedStatement findHashes;
+    private final PreparedStatement adopt;
+    private final PreparedStatement unlink;
+    private final PreparedStatement merge;
+    private final PreparedStatement directInsert;  // bulk mode only
+    private final MovieIdAllocator ids;            // bulk mode only
+    private final int batchSize;
+    private final List<Row> batch;
+    private final RejectsFile rejects;
+    private final boolean full;
+    private final ImportDeduplicator deduplicator;  // null unless import.dedup
+
+    private long lookupNanos;
+    private long bindNanos;
+    private long executeNanos;
+    private long commitNanos;
+    private int written;
+    private int unchanged;
+    private int duplicates;
+    private int batches;
+    private int retriedBatches;
+
+    /**
+     * Takes over conn's transaction (autocommit off). With full set, unchanged rows are written too.
+     * deduplicator, if not null, vets every new source key (see ImportDeduplicator).
+     */
+    public MovieBatchWriter(Connection conn, Properties config, RejectsFile rejects, boolean bulk, boolean full,
+                            ImportDeduplicator deduplicator) throws SQLException {
+        this.conn = conn;
+        this.batchSize = batchSize(config, bulk);
+        this.batch = new ArrayList<>(batchSize);
+        this.rejects = rejects;
+        this.full = full;
+        this.deduplicator = deduplicator;
+        conn.setAutoCommit(false);
+        this.findHashes = conn.prepareStatement(FIND_CONTENT_HASHES_SQL);
+        this.adopt = conn.prepareStatement(ADOPT_SQL);
+        this.unlink = conn.prepareStatement(UNLINK_GENRES_SQL);
+        this.merge = conn.prepareStatement(MERGE_SQL);
+        this.directInsert = bulk ? conn.prepareStatement(DIRECT_INSERT_SQL) : null;
+        this.ids = bulk ? new MovieIdAllocator(conn, batchSize) : null;
+    }
+
+    /**
+     * Marks every non-unique index on Movies UNUSABLE, so a bulk load doesn't maintain them row
+     * by row, and returns their names for {@link #rebuildIndexes}. Unique indexes (primary key,
+     * source_key) stay, since inserts can't skip them, and so does idx_movies_type_upper_title,
+     * which ImportDeduplicator looks titles up by during the load.
+     */
+    public static List<String> disableSecondaryIndexes() throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getConnection();
+             PreparedStatement find = conn.prepareStatement(FIND_SECONDARY_INDEXES_SQL);
+             Statement ddl = conn.createStatement()) {
+            ResultSet rs = find.executeQuery();
+            while (rs.next()) {
+                names.add(rs.getString("index_name"));
+            }
+            for (String name : names) {
+                ddl.execute("ALTER INDEX \"" + name + "\" UNUSABLE");
+            }
+        }
+        return names;
+    }
+
+    /** Rebuilds the indexes disableSecondaryIndexes returned. Run it even if the load failed. */
+    public static void rebuildIndexes(List<String> names) throws SQLException {
+        // A rebuild of a large table can outlast the pool's leak threshold.
+        try (Connection conn = DatabaseConnector.getLongLivedConnection(); Statement ddl = conn.createStatement()) {
+            for (String name : names) {
+                long start = System.nanoTime();
+                ddl.execute("ALTER INDEX \"" + name + "\" REBUILD");
+                System.out.println("Rebuilt index " + name + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        }
+    }
+
+    public void add(long line, MovieRecord movie, String contentHash) throws SQLException, IOException {
+        batch.add(new Row(line, movie, contentHash, false));
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /** Inserts and commits whatever is buffered and changed. */
+    public void flush() throws SQLException, IOException {
+        if (batch.isEmpty()) return;
+        List<Row> pending = new ArrayList<>(batch);
+        batch.clear();
+        // A new title repeated within the batch waits for a second round, once the first one is
+        // committed (or rejected), so the duplicate check can tell which.
+        while (!pending.isEmpty()) {
+            List<Row> deferred = new ArrayList<>();
+            List<Row> rows = changedRows(pending, deferred);
+            if (!rows.isEmpty()) {
+                write(rows);
+            }
+            pending = deferred;
+        }
+        batches++;
+    }
+
+    // The pending rows that are new or differ from Movies, with newKey set. Duplicates go to the
+    // rejects file; new titles already in this round go to deferred.
+    private List<Row> changedRows(List<Row> pending, List<Row> deferred) throws SQLException, IOException {
+        long start = System.nanoTime();
+        Map<String, String> known = new HashMap<>();
+        for (int from = 0; from < pending.size(); from += LOOKUP_KEYS) {
+            int to = Math.min(from + LOOKUP_KEYS, pending.size());
+            for (int i = 0; i < LOOKUP_KEYS; i++) {
+                findHashes.setString(i + 1, from + i < to ? pending.get(from + i).movie().sourceKey() : null);
+            }
+            try (ResultSet rs = findHashes.executeQuery()) {
+                while (rs.next()) {
+                    known.put(rs.getString("source_key"), rs.getString("content_hash"));
+                }
+            }
+        }
+
+        List<Row> rows = new ArrayList<>(pending.size());
+        Set<String> newTitles = new HashSet<>();
+        for (Row row : pending) {
+            String key = row.movie().sourceKey();
+            boolean newKey = !known.containsKey(key);
+            if (!full && row.contentHash().equals(known.get(key))) {
+                unchanged++;
+                continue;
+            }
+            if (newKey && deduplicator != null) {
+                String title = ImportDeduplicator.keyOf(row.movie());
+                if (newTitles.contains(title)) {
+                    deferred.add(row);
+                    continue;
+                }
+                String original = deduplicator.duplicateOf(conn, row.movie());
+                if (original != null) {
+                    duplicates++;
+                    rejects.reject(row.line(), RejectsFile.STAGE_DUPLICATE, null, "Duplicate of " + original, row.movie().title());
+                    continue;
+                }
+                newTitles.add(title);
+            }
+            rows.add(new Row(row.line(), row.movie(), row.contentHash(), newKey));
+        }
+        lookupNanos += System.nanoTime() - start;
+        return rows;
+    }
+
+    // In bulk mode new keys are direct-path inserted, committed separately after the MERGEs (a
+    // direct-path insert must be the only change to Movies in its transaction). Each part is retried
+    // on its own, so a failed insert never applies the already committed MERGEs a second time.
+    private void write(List<Row> rows) throws SQLException, IOException {
+        List<Row> merged = new ArrayList<>(rows.size());
+        List<Row> direct = new ArrayList<>();
+        for (Row row : rows) {
+            (directInsert != null && row.newKey() ? direct : merged).add(row);
+        }
+        if (!merged.isEmpty()) {
+            writeMerged(merged);
+        }
+        if (!direct.isEmpty()) {
+            writeDirect(direct);
+        }
+    }
+
+    private void writeMerged(List<Row> rows) throws SQLException, IOException {
+        try {
+            long bindStart = System.nanoTime();
+            for (Row row : rows) {
+                bindMerge(row);
+                if (row.newKey()) adopt.addBatch();
+                unlink.addBatch();
+                merge.addBatch();
+            }
+            long executeStart = System.nanoTime();
+            bindNanos += executeStart - bindStart;
+            adopt.executeBatch();
+            unlink.executeBatch();
+            merge.executeBatch();
+            executeNanos += System.nanoTime() - executeStart;
+            commit();
+            written += rows.size();
+            recordWritten(rows);
+        } catch (SQLException e) {
+            adopt.clearBatch();
+            unlink.clearBatch();
+            merge.clearBatch();
+            retry(rows, e);
+        }
+    }
+
+    private void writeDirect(List<Row> rows) throws SQLException, IOException {
+        try {
+            long bindStart = System.nanoTime();
+            long idNanos = 0;
+            for (Row row : rows) {
+                long idStart = System.nanoTime();
+                long movieId = ids.next();
+                idNanos += System.nanoTime() - idStart;
+                directInsert.setLong(1, movieId);
+                bindColumns(directInsert, 2, row);
+                directInsert.addBatch();
+            }
+            long executeStart = System.nanoTime();
+            bindNanos += executeStart - bindStart - idNanos;
+            directInsert.executeBatch();
+            executeNanos += System.nanoTime() - executeStart + idNanos;  // fetching an id block is a database round trip too
+            commit();
+            written += rows.size();
+            recordWritten(rows);
+        } catch (SQLException e) {
+            directInsert.clearBatch();
+            retry(rows, e);
+        }
+    }
+
+    private void retry(List<Row> rows, SQLException e) throws SQLException, IOException {
+        conn.rollback();
+        retriedBatches++;
+        System.err.println("Batch of " + rows.size() + " rows failed (" + e.getMessage() + "); retrying row by row.");
+        retryRowByRow(rows);
+    }
+
+    /** Rows inserted or updated and committed so far. */
+    public int getWritten() {
+        return written;
+    }
+
+    /** Rows skipped because Movies already had them with the same content_hash. */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    /** New titles skipped by the deduplicator. */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public int getPending() {
+        return batch.size();
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public int getRetriedBatches() {
+        return retriedBatches;
+    }
+
+    /** Time spent looking up the content_hash of buffered rows and checking new ones for duplicates. */
+    public long getLookupNanos() {
+        return lookupNanos;
+    }
+
+    /** Time spent binding parameters and adding rows to the JDBC batches. */
+    public long getBindNanos() {
+        return bindNanos;
+    }
+
+    /** Time spent in executeBatch / executeUpdate (and fetching id blocks). */
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    public long getCommitNanos() {
+        return commitNanos;
+    }
+
+    /** Flushes the last chunk. */
+    @Override
+    public void close() throws SQLException, IOException {
+        try {
+            flush();
+        } finally {
+            findHashes.close();
+            adopt.close();
+            unlink.close();
+            merge.close();
+            if (directInsert != null) directInsert.close();
+        }
+    }
+
+    static int batchSize(Properties config, boolean bulk) {
+        return (int) Math.max(1, bulk
+                ? DatabaseConnector.longProperty(config, "import.bulk.batchSize", 10_000)
+                : DatabaseConnector.longProperty(config, "import.batchSize", 1_000));
+    }
+
+    // Each row behind a savepoint, so a bad row's earlier statements are undone and the good rows share one commit.
+    // Always through the MERGE, also in bulk mode: it inserts new keys just the same.
+    private void retryRowByRow(List<Row> rows) throws SQLException, IOException {
+        List<Row> succeeded = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            Savepoint beforeRow = conn.setSavepoint();
+            try {
+                long bindStart = System.nanoTime();
+                bindMerge(row);
+                long executeStart = System.nanoTime();
+                bindNanos += executeStart - bindStart;
+                if (row.newKey()) adopt.executeUpdate();
+                unlink.executeUpdate();
+                merge.executeUpdate();
+                executeNanos += System.nanoTime() - executeStart;
+                written++;
+                succeeded.add(row);
+            } catch (SQLException rowError) {
+                conn.rollback(beforeRow);
+                rejects.reject(row.line(), RejectsFile.STAGE_DATABASE, columnOf(rowError), rowError.getMessage().trim(), row.movie().title());
+            }
+        }
+        commit();
+        recordWritten(succeeded);
+    }
+
+    // A new title only counts for the duplicate check once its row is committed.
+    private void recordWritten(List<Row> rows) {
+        if (deduplicator == null) return;
+        for (Row row : rows) {
+            if (row.newKey()) deduplicator.recordWritten(row.movie());
+        }
+    }
+
+    private void commit() throws SQLException {
+        long start = System.nanoTime();
+        conn.commit();
+        commitNanos += System.nanoTime() - start;
+    }
+
+    // The Movies column an ORA- error names, e.g. ORA-12899 'value too large for column "APP"."MOVIES"."TITLE"'.
+    private static String columnOf(SQLException e) {
+        Matcher column = ERROR_COLUMN.matcher(String.valueOf(e.getMessage()));
+        return column.find() ? column.group(1).toLowerCase(Locale.ROOT) : null;
+    }
+
+    private void bindMerge(Row row) throws SQLException {
+        MovieRecord movie = row.movie();
+        if (row.newKey()) {
+            adopt.setString(1, movie.sourceKey());
+            adopt.setString(2, movie.mediaType());
+            adopt.setString(3, movie.title());
+            adopt.setInt(4, movie.releaseYear());
+        }
+        unlink.setString(1, movie.sourceKey());
+        bindColumns(merge, 1, row);
+    }
+
+    // source_key through producers, in MERGE_SQL / DIRECT_INSERT_SQL order, from parameter first on.
+    private static void bindColumns(PreparedStatement pstmt, int first, Row row) throws SQLException {
+        MovieRecord movie = row.movie();
+        pstmt.setString(first, movie.sourceKey());
+        pstmt.setString(first + 1, row.contentHash());
+        pstmt.setString(first + 2, movie.title());
+        pstmt.setInt(first + 3, movie.releaseYear());
+        pstmt.setString(first + 4, movie.director());
+        pstmt.setString(first + 5, movie.posterLink());
+        pstmt.setString(first + 6, movie.mediaType());
+        pstmt.setString(first + 7, movie.genres());
+        pstmt.setString(first + 8, movie.synopsis());
+        pstmt.setString(first + 9, movie.runtime());
+        pstmt.setString(first + 10, movie.ageRating());
+        pstmt.setDouble(first + 11, movie.externalScore());
+        if (movie.episodes() != null) {
+            pstmt.setInt(first + 12, movie.episodes());
+        } else {
+            pstmt.setNull(first + 12, Types.INTEGER);
+        }
+        pstmt.setString(first + 13, movie.status());
+        pstmt.setString(first + 14, movie.studios());
+        pstmt.setString(first + 15, movie.producers());
+    }
+}
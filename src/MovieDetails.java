@@ -0,0 +1,19 @@
+/**
+ * Everything MovieDetailsDialog shows about a single title.
+ * avgRating is 0 when the title has no reviews.
+ */
+public record MovieDetails(int movieId, String title, int releaseYear, String director, String posterLink,
+                           String mediaType, String genres, String synopsis, String runtime, String ageRating,
+                           double externalScore, int episodes, String status, String studios, String producers,
+                           double avgRating) {
+
+    public MovieDetails withAvgRating(double newAvgRating) {
+        return new MovieDetails(movieId, title, releaseYear, director, posterLink, mediaType, genres, synopsis, runtime,
+                ageRating, externalScore, episodes, status, studios, producers, newAvgRating);
+    }
+
+    public MovieDetails withPosterLink(String newPosterLink) {
+        return new MovieDetails(movieId, title, releaseYear, director, newPosterLink, mediaType, genres, synopsis, runtime,
+                ageRating, externalScore, episodes, status, studios, producers, avgRating);
+    }
+}
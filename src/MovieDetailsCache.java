@@ -0,0 +1,130 @@
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Application-wide cache of MovieDetails, so reopening a title doesn't query its metadata again.
+ *
+ * Holds the details.cacheEntries most recently opened titles, each for up to details.ttlMinutes
+ * (after which it is loaded again, picking up edits made elsewhere). Writers keep it current
+ * instead of clearing it: ReviewRepository marks a title's rating stale after every review write,
+ * and only the rating is then re-read (one PK lookup on Movies); MovieRepository.updatePosterLink
+ * writes the new link through.
+ *
+ * Both also bump the title's version, cached or not, so a miss that was reading Movies while a
+ * review or poster change committed can tell its result may predate it and doesn't cache it.
+ */
+public final class MovieDetailsCache {
+
+    private record Entry(MovieDetails details, long loadedAt, boolean ratingStale) {
+    }
+
+    private static final int MAX_VERSIONS = 1_000;
+    private static final int MAX_ENTRIES;
+    private static final long TTL_MILLIS;
+    static {
+        Properties config = DatabaseConnector.loadConfig();
+        MAX_ENTRIES = Math.max(1, DatabaseConnector.intProperty(config, "details.cacheEntries", 200));
+        TTL_MILLIS = Math.max(0, DatabaseConnector.longProperty(config, "details.ttlMinutes", 10)) * 60_000;
+    }
+
+    // Access-ordered, so the eldest entry is the least recently opened title. Guarded by the class lock.
+    private static final Map<Integer, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // movieId -> the clock value of its latest change, oldest change first. A title that dropped out
+    // counts as changed at forgottenVersion, which only makes an in-flight read skip caching.
+    private static final Map<Integer, Long> versions = new LinkedHashMap<>(64, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+            if (size() <= MAX_VERSIONS) return false;
+            forgottenVersion = eldest.getValue();
+            return true;
+        }
+    };
+    private static long clock;
+    private static long forgottenVersion;
+
+    private MovieDetailsCache() {
+    }
+
+    /** The details if they are cached, fresh and need no rating refresh, else null. Never queries; safe on the EDT. */
+    public static synchronized MovieDetails getIfCached(int movieId) {
+        Entry entry = entries.get(movieId);
+        return entry != null && !expired(entry) && !entry.ratingStale() ? entry.details() : null;
+    }
+
+    /**
+     * The details of a title, or null if it doesn't exist: from memory when possible, with only
+     * the rating re-read if reviews changed. Queries the database, so call it off the EDT.
+     */
+    public static MovieDetails get(int movieId) throws SQLException {
+        Entry entry;
+        synchronized (MovieDetailsCache.class) {
+            entry = entries.get(movieId);
+        }
+        if (entry != null && !expired(entry)) {
+            if (!entry.ratingStale()) {
+                return entry.details();
+            }
+            MovieDetails refreshed = entry.details().withAvgRating(MovieRepository.findAvgRating(movieId));
+            synchronized (MovieDetailsCache.class) {
+                // Only if nothing replaced the entry (or staled it again) while the rating was read.
+                if (entries.get(movieId) == entry) {
+                    entries.put(movieId, new Entry(refreshed, entry.loadedAt(), false));
+                }
+            }
+            return refreshed;
+        }
+        long version;
+        synchronized (MovieDetailsCache.class) {
+            version = versionOf(movieId);
+        }
+        MovieDetails details = MovieRepository.findDetails(movieId);
+        if (details != null) {
+            synchronized (MovieDetailsCache.class) {
+                // A change committed during the read may be missing from it: return it, but don't keep it.
+                if (versionOf(movieId) == version) {
+                    entries.put(movieId, new Entry(details, System.currentTimeMillis(), false));
+                }
+            }
+        }
+        return details;
+    }
+
+    /** A review of the title was added, edited or deleted. */
+    public static synchronized void ratingChanged(int movieId) {
+        changed(movieId);
+        Entry entry = entries.get(movieId);
+        if (entry != null) {
+            entries.put(movieId, new Entry(entry.details(), entry.loadedAt(), true));
+        }
+    }
+
+    public static synchronized void posterChanged(int movieId, String posterLink) {
+        changed(movieId);
+        Entry entry = entries.get(movieId);
+        if (entry != null) {
+            entries.put(movieId, new Entry(entry.details().withPosterLink(posterLink), entry.loadedAt(), entry.ratingStale()));
+        }
+    }
+
+    // Called with the class lock held. Removing first moves the title to the end, keeping the order by version.
+    private static void changed(int movieId) {
+        versions.remove(movieId);
+        versions.put(movieId, ++clock);
+    }
+
+    private static long versionOf(int movieId) {
+        return versions.getOrDefault(movieId, forgottenVersion);
+    }
+
+    private static boolean expired(Entry entry) {
+        return System.currentTimeMillis() - entry.loadedAt() > TTL_MILLIS;
+    }
+}
@@ -1,26 +1,30 @@
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.text.Position;
 import java.awt.*;
-import java.net.URL;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 public class MovieDetailsDialog extends JDialog {
 
+    private static final int POSTER_WIDTH = 220;
+    private static final int POSTER_HEIGHT = 310;
+    // Every review cell has the same height, so the list never measures reviews that aren't on screen.
+    private static final int REVIEW_CELL_HEIGHT = 110;
+
     private int movieId;
     private int currentUserId;
-    private JPanel reviewsPanel;
+    private JList<Review> reviewsList;
+    private ReviewListModel reviewsModel;
+    private ReviewRenderer reviewRenderer;
     private JLabel posterLabel;
     private String currentPosterUrl;
     private JLabel averageScoreLabel;
     private JLabel genresLabel;
     private JTextArea synopsisArea;
-    private Map<Integer, JButton> likeButtons = new HashMap<>();
     private JLabel externalScoreLabel;
     private JLabel runtimeLabel;
     private JLabel ageRatingLabel;
@@ -29,13 +33,15 @@ public class MovieDetailsDialog extends JDialog {
     private JLabel studiosLabel;
     private JLabel producersLabel;
 
-    public MovieDetailsDialog(JFrame parent, int movieId, String movieTitle, int currentUserId) {
+    // posterLink comes from the table row, so the poster can load before the details have arrived.
+    public MovieDetailsDialog(JFrame parent, int movieId, String movieTitle, String posterLink, int currentUserId) {
         super(parent, "Details for: " + movieTitle, true);
         this.movieId = movieId;
         this.currentUserId = currentUserId;
 
         setSize(850, 700);
         setLocationRelativeTo(parent);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 
         // UI Components
         JPanel contentPanel = new JPanel(new BorderLayout(10, 10));
@@ -43,7 +49,7 @@ public class MovieDetailsDialog extends JDialog {
 
         JPanel topDetailsPanel = new JPanel(new BorderLayout(15, 15));
         posterLabel = new JLabel("Loading poster...");
-        posterLabel.setPreferredSize(new Dimension(220, 310));
+        posterLabel.setPreferredSize(new Dimension(POSTER_WIDTH, POSTER_HEIGHT));
         posterLabel.setHorizontalAlignment(JLabel.CENTER);
         posterLabel.setBorder(BorderFactory.createLineBorder(Color.GRAY));
         topDetailsPanel.add(posterLabel, BorderLayout.WEST);
@@ -95,9 +101,40 @@ public class MovieDetailsDialog extends JDialog {
         topDetailsPanel.add(infoPanel, BorderLayout.CENTER);
         contentPanel.add(topDetailsPanel, BorderLayout.NORTH);
 
-        reviewsPanel = new JPanel();
-        reviewsPanel.setLayout(new BoxLayout(reviewsPanel, BoxLayout.Y_AXIS));
-        JScrollPane scrollPane = new JScrollPane(reviewsPanel);
+        // --- NEW: virtualized review list; pages are loaded as they scroll into view ---
+        reviewsModel = new ReviewListModel(movieId, currentUserId, error -> DataAccess.unwrap(error).printStackTrace());
+        reviewRenderer = new ReviewRenderer();
+        reviewsList = new JList<>(reviewsModel) {
+            @Override
+            public int getNextMatch(String prefix, int startIndex, Position.Bias bias) {
+                return -1; // type-ahead would walk (and load) every review
+            }
+
+            @Override
+            public String getToolTipText(MouseEvent e) {
+                Review review = reviewAt(e.getPoint());
+                if (review == null || review.reviewText() == null) return null;
+                return "<html><body style='width: 400px;'>" + escapeHtml(review.reviewText()) + "</body></html>";
+            }
+        };
+        reviewsList.setCellRenderer(reviewRenderer);
+        reviewsList.setFixedCellHeight(REVIEW_CELL_HEIGHT);
+        reviewsList.setFixedCellWidth(100); // cells span the viewport anyway; a fixed width avoids measuring every cell
+        reviewsList.setSelectionModel(new DefaultListSelectionModel() {
+            @Override
+            public void setSelectionInterval(int index0, int index1) {
+                // reviews aren't selectable; the list only draws them
+            }
+        });
+        ToolTipManager.sharedInstance().registerComponent(reviewsList);
+        reviewsList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                reviewClicked(e.getPoint());
+            }
+        });
+        JScrollPane scrollPane = new JScrollPane(reviewsList);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(REVIEW_CELL_HEIGHT / 4);
         scrollPane.setBorder(BorderFactory.createTitledBorder("User Reviews"));
         contentPanel.add(scrollPane, BorderLayout.CENTER);
 
@@ -119,7 +156,7 @@ public class MovieDetailsDialog extends JDialog {
             AddReviewDialog addReviewDlg = new AddReviewDialog(this, this.movieId, this.currentUserId);
             addReviewDlg.setVisible(true);
             if (addReviewDlg.isReviewSubmitted()) {
-                loadMovieDetails();
+                reloadAfterReviewChange();
             }
         });
         editPosterButton.addActionListener(e -> {
@@ -129,43 +166,76 @@ public class MovieDetailsDialog extends JDialog {
             }
         });
 
+        loadAll(posterLink);
+    }
+
+    // --- NEW: the three legs (details with rating, first page of reviews, poster) start together on
+    // virtual threads and each is shown as soon as it arrives, so opening takes as long as the slowest
+    // leg instead of their sum. When all are done the time of each leg is logged, showing the critical path.
+    private void loadAll(String posterLink) {
+        long start = System.nanoTime();
+        this.currentPosterUrl = posterLink;
+        CompletableFuture<String> poster = timed("poster", start, loadPosterImage(posterLink));
+        CompletableFuture<String> details = timed("details", start, loadMovieDetails());
+        CompletableFuture<String> reviews = timed("reviews", start, loadMovieReviews());
+        CompletableFuture.allOf(poster, details, reviews).thenRun(() -> System.out.printf(
+                "Opened title %d in %d ms: %s, %s, %s%n", movieId, (System.nanoTime() - start) / 1_000_000,
+                details.join(), reviews.join(), poster.join()));
+    }
+
+    private static CompletableFuture<String> timed(String leg, long start, CompletableFuture<?> future) {
+        return future.handle((ignored, error) ->
+                leg + " " + (System.nanoTime() - start) / 1_000_000 + " ms" + (error != null ? " (failed)" : ""));
+    }
+
+    // After a review is added, edited or deleted: the rating and the list, again side by side.
+    private void reloadAfterReviewChange() {
         loadMovieDetails();
+        loadMovieReviews();
     }
 
-    private void loadMovieDetails() {
-        String sql = "SELECT m.*, AVG(r.rating) as avg_rating FROM Movies m LEFT JOIN Reviews r ON m.movie_id = r.movie_id WHERE m.movie_id = ? " +
-                     "GROUP BY m.movie_id, m.title, m.release_year, m.director, m.poster_link, m.media_type, m.genres, m.synopsis, m.runtime, m.age_rating, m.external_score, m.episodes, m.status, m.studios, m.producers";
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, this.movieId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                this.currentPosterUrl = rs.getString("poster_link");
-                loadPosterImage(this.currentPosterUrl);
-                
-                double avgRating = rs.getDouble("avg_rating");
-                averageScoreLabel.setText(avgRating > 0 ? String.format("Avg. User Rating: %.2f / 5.0", avgRating) : "Avg. User Rating: Not rated");
-                
-                double extScore = rs.getDouble("external_score");
-                externalScoreLabel.setText(extScore > 0 ? String.format("External Score: %.2f / 10.0", extScore) : "External Score: N/A");
-                externalScoreLabel.setVisible(extScore > 0);
-
-                setLabelText(genresLabel, "Genres", rs.getString("genres"), true);
-                setLabelText(runtimeLabel, "Runtime", rs.getString("runtime"), false);
-                setLabelText(ageRatingLabel, "Age Rating", rs.getString("age_rating"), false);
-                synopsisArea.setText(rs.getString("synopsis"));
-                synopsisArea.setCaretPosition(0);
-
-                int episodes = rs.getInt("episodes");
-                setLabelText(episodesLabel, "Episodes", episodes > 0 ? String.valueOf(episodes) : null, false);
-                setLabelText(statusLabel, "Status", rs.getString("status"), false);
-                setLabelText(studiosLabel, "Studios", rs.getString("studios"), false);
-                setLabelText(producersLabel, "Producers", rs.getString("producers"), true);
+    // Served from MovieDetailsCache: a title opened before shows at once, and after a review change only its rating is re-read.
+    private CompletableFuture<Void> loadMovieDetails() {
+        MovieDetails cached = MovieDetailsCache.getIfCached(this.movieId);
+        if (cached != null) {
+            showDetails(cached);
+            return CompletableFuture.completedFuture(null);
+        }
+        return DataAccess.supply(() -> MovieDetailsCache.get(this.movieId)).whenCompleteAsync((details, error) -> {
+            if (error != null) {
+                DataAccess.unwrap(error).printStackTrace();
+                JOptionPane.showMessageDialog(this, "Could not load details. See terminal.", "DB Error", JOptionPane.ERROR_MESSAGE);
+            } else if (details != null) {
+                showDetails(details);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Could not load details. See terminal.", "DB Error", JOptionPane.ERROR_MESSAGE);
+        }, DataAccess.EDT).thenApply(details -> null);
+    }
+
+    private void showDetails(MovieDetails details) {
+        // Usually the link from the table row, already loading; only a link edited since then starts another load.
+        if (!Objects.equals(details.posterLink(), this.currentPosterUrl)) {
+            this.currentPosterUrl = details.posterLink();
+            loadPosterImage(this.currentPosterUrl);
         }
-        loadMovieReviews();
+        
+        double avgRating = details.avgRating();
+        averageScoreLabel.setText(avgRating > 0 ? String.format("Avg. User Rating: %.2f / 5.0", avgRating) : "Avg. User Rating: Not rated");
+        
+        double extScore = details.externalScore();
+        externalScoreLabel.setText(extScore > 0 ? String.format("External Score: %.2f / 10.0", extScore) : "External Score: N/A");
+        externalScoreLabel.setVisible(extScore > 0);
+
+        setLabelText(genresLabel, "Genres", details.genres(), true);
+        setLabelText(runtimeLabel, "Runtime", details.runtime(), false);
+        setLabelText(ageRatingLabel, "Age Rating", details.ageRating(), false);
+        synopsisArea.setText(details.synopsis());
+        synopsisArea.setCaretPosition(0);
+
+        int episodes = details.episodes();
+        setLabelText(episodesLabel, "Episodes", episodes > 0 ? String.valueOf(episodes) : null, false);
+        setLabelText(statusLabel, "Status", details.status(), false);
+        setLabelText(studiosLabel, "Studios", details.studios(), false);
+        setLabelText(producersLabel, "Producers", details.producers(), true);
     }
     
     private void setLabelText(JLabel label, String prefix, String value, boolean useHtml) {
@@ -178,130 +248,168 @@ public class MovieDetailsDialog extends JDialog {
     }
     
     private void updatePosterLink(String newUrl) {
-        String sql = "UPDATE Movies SET poster_link = ? WHERE movie_id = ?";
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, newUrl.isEmpty() ? null : newUrl);
-            pstmt.setInt(2, this.movieId);
-            pstmt.executeUpdate();
+        DataAccess.run(() -> MovieRepository.updatePosterLink(this.movieId, newUrl.isEmpty() ? null : newUrl)).whenCompleteAsync((ignored, error) -> {
+            if (error != null) { JOptionPane.showMessageDialog(this, "Failed to update poster.", "DB Error", JOptionPane.ERROR_MESSAGE); return; }
             JOptionPane.showMessageDialog(this, "Poster updated!");
             this.currentPosterUrl = newUrl;
             loadPosterImage(this.currentPosterUrl);
-        } catch (SQLException e) { JOptionPane.showMessageDialog(this, "Failed to update poster.", "DB Error", JOptionPane.ERROR_MESSAGE); }
+        }, DataAccess.EDT);
     }
     
-    private void loadPosterImage(String urlString) {
+    private CompletableFuture<Void> loadPosterImage(String urlString) {
         if (urlString == null || urlString.isEmpty()) {
-            posterLabel.setText("No Poster"); posterLabel.setIcon(null); return;
+            posterLabel.setText("No Poster"); posterLabel.setIcon(null); return CompletableFuture.completedFuture(null);
+        }
+        // Reopening a title shows the poster straight from the shared cache, without a network round trip.
+        PosterCache posters = PosterCache.shared();
+        BufferedImage cached = posters.getIfCached(urlString, POSTER_WIDTH, POSTER_HEIGHT);
+        if (cached != null) {
+            posterLabel.setText(""); posterLabel.setIcon(new ImageIcon(cached)); return CompletableFuture.completedFuture(null);
         }
         posterLabel.setText("Loading..."); posterLabel.setIcon(null);
-        new SwingWorker<ImageIcon, Void>() {
-            protected ImageIcon doInBackground() throws Exception {
-                Image image = ImageIO.read(new URL(urlString));
-                return image != null ? new ImageIcon(image.getScaledInstance(220, 310, Image.SCALE_SMOOTH)) : null;
+        return posters.loadAsync(urlString, POSTER_WIDTH, POSTER_HEIGHT).whenCompleteAsync((image, error) -> {
+            if (!urlString.equals(currentPosterUrl)) {
+                return; // the poster link was edited meanwhile
             }
-            protected void done() {
-                try {
-                    ImageIcon imageIcon = get();
-                    posterLabel.setText(imageIcon == null ? "No Poster" : "");
-                    posterLabel.setIcon(imageIcon);
-                } catch (Exception e) { posterLabel.setText("Load Failed"); }
+            if (error != null) {
+                posterLabel.setText("Load Failed");
+                return;
             }
-        }.execute();
+            posterLabel.setText(image == null ? "No Poster" : "");
+            posterLabel.setIcon(image == null ? null : new ImageIcon(image));
+        }, DataAccess.EDT).thenApply(image -> null);
     }
 
-    private void loadMovieReviews() {
-        reviewsPanel.removeAll();
-        likeButtons.clear();
-        String sql = "SELECT r.review_id, u.username, r.rating, r.review_text, r.user_id, " +
-                     "(SELECT COUNT(*) FROM Review_Likes rl WHERE rl.review_id = r.review_id) as like_count, " +
-                     "(SELECT COUNT(*) FROM Review_Likes rl WHERE rl.review_id = r.review_id AND rl.user_id = ?) as user_liked " +
-                     "FROM Reviews r JOIN Users u ON r.user_id = u.user_id " +
-                     "WHERE r.movie_id = ? ORDER BY like_count DESC, r.created_at DESC";
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, this.currentUserId);
-            pstmt.setInt(2, this.movieId);
-            ResultSet rs = pstmt.executeQuery();
-            boolean found = false;
-            while (rs.next()) {
-                found = true;
-                int reviewId = rs.getInt("review_id");
-                String username = rs.getString("username");
-                double rating = rs.getDouble("rating");
-                String reviewText = rs.getString("review_text");
-                int reviewUserId = rs.getInt("user_id");
-                int likeCount = rs.getInt("like_count");
-                boolean userHasLiked = rs.getInt("user_liked") > 0;
-                JPanel reviewCard = new JPanel(new BorderLayout(5, 5));
-                reviewCard.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.LIGHT_GRAY), new EmptyBorder(10, 5, 10, 5)));
-                String headerText = String.format("<html><b>%s</b> (Rating: %.1f/5.0)</html>", username, rating);
-                reviewCard.add(new JLabel(headerText), BorderLayout.NORTH);
-                JTextArea reviewContent = new JTextArea(reviewText);
-                reviewContent.setWrapStyleWord(true);
-                reviewContent.setLineWrap(true);
-                reviewContent.setEditable(false);
-                reviewContent.setBackground(getBackground());
-                reviewCard.add(reviewContent, BorderLayout.CENTER);
-                JPanel actionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-                JButton likeButton = new JButton(userHasLiked ? "Unlike" : "Like");
-                JLabel likesLabel = new JLabel(String.valueOf(likeCount));
-                if (reviewUserId == this.currentUserId) {
-                    likeButton.setEnabled(false);
-                } else {
-                    likeButton.addActionListener(e -> toggleLike(reviewId, userHasLiked));
-                }
-                actionsPanel.add(likesLabel);
-                actionsPanel.add(likeButton);
-                if (reviewUserId == this.currentUserId) {
-                    JButton editButton = new JButton("Edit");
-                    JButton deleteButton = new JButton("Delete");
-                    actionsPanel.add(editButton);
-                    actionsPanel.add(deleteButton);
-                    editButton.addActionListener(e -> {
-                        AddReviewDialog dlg = new AddReviewDialog(this, movieId, currentUserId, reviewId, rating, reviewText);
-                        dlg.setVisible(true);
-                        if (dlg.isReviewSubmitted()) loadMovieDetails();
-                    });
-                    deleteButton.addActionListener(e -> {
-                        if (JOptionPane.showConfirmDialog(this, "Are you sure?", "Confirm", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                            deleteReview(reviewId);
-                        }
-                    });
-                }
-                reviewCard.add(actionsPanel, BorderLayout.SOUTH);
-                reviewsPanel.add(reviewCard);
-            }
-            if (!found) {
-                reviewsPanel.add(new JLabel("No reviews yet. Be the first to write one!"));
+    // Pending likes are written first so the reloaded list includes them. Completes once the first page is shown.
+    private CompletableFuture<Void> loadMovieReviews() {
+        return LikeWriteQueue.shared().flushAsync().exceptionally(error -> null)
+                .thenComposeAsync(ignored -> reviewsModel.reload(), DataAccess.EDT);
+    }
+
+    @Override
+    public void dispose() {
+        LikeWriteQueue.shared().flushAsync();
+        super.dispose();
+    }
+
+    private Review reviewAt(Point point) {
+        int index = reviewsList.locationToIndex(point);
+        if (index < 0 || !reviewsList.getCellBounds(index, index).contains(point)) return null;
+        return reviewsModel.getElementAt(index);
+    }
+
+    // The cells are only drawn by the renderer, so find which of its buttons is under the click by laying it out for that row.
+    private void reviewClicked(Point point) {
+        Review review = reviewAt(point);
+        if (review == null) return;
+        int index = reviewsList.locationToIndex(point);
+        Rectangle bounds = reviewsList.getCellBounds(index, index);
+        reviewRenderer.getListCellRendererComponent(reviewsList, review, index, false, false);
+        reviewRenderer.setBounds(0, 0, bounds.width, bounds.height);
+        reviewRenderer.layoutForHitTest();
+        Component target = SwingUtilities.getDeepestComponentAt(reviewRenderer, point.x - bounds.x, point.y - bounds.y);
+        if (!(target instanceof JButton button) || !button.isVisible() || !button.isEnabled()) return;
+
+        if (button == reviewRenderer.likeButton) {
+            toggleLike(review);
+        } else if (button == reviewRenderer.editButton) {
+            AddReviewDialog dlg = new AddReviewDialog(this, movieId, currentUserId, review.reviewId(), review.rating(), review.reviewText());
+            dlg.setVisible(true);
+            if (dlg.isReviewSubmitted()) reloadAfterReviewChange();
+        } else if (button == reviewRenderer.deleteButton) {
+            if (JOptionPane.showConfirmDialog(this, "Are you sure?", "Confirm", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                deleteReview(review.reviewId());
             }
-            reviewsPanel.revalidate();
-            reviewsPanel.repaint();
-        } catch (SQLException ex) {
-            reviewsPanel.add(new JLabel("Error loading reviews."));
         }
     }
-    
-    private void toggleLike(int reviewId, boolean userHasLiked) {
-        String sql = userHasLiked ? "DELETE FROM Review_Likes WHERE review_id = ? AND user_id = ?" : "INSERT INTO Review_Likes (like_id, review_id, user_id) VALUES (like_id_seq.NEXTVAL, ?, ?)";
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, reviewId);
-            pstmt.setInt(2, this.currentUserId);
-            pstmt.executeUpdate();
-            loadMovieReviews();
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Action failed.", "DB Error", JOptionPane.ERROR_MESSAGE);
-        }
+
+    // Write-behind: the cell flips at once and LikeWriteQueue coalesces and batches the database write.
+    // Only this cell changes; the list order catches up with the new count on the next reload.
+    // If the write is given up, the cell goes back to what it showed before the click.
+    private void toggleLike(Review review) {
+        boolean liked = !review.likedByViewer();
+        reviewsModel.replace(withLike(review, liked, review.likeCount() + (liked ? 1 : -1)));
+        LikeWriteQueue.shared().submit(review.reviewId(), this.currentUserId, liked).whenCompleteAsync((written, error) -> {
+            if (error == null && written) return;
+            reviewsModel.replace(review);
+            if (isDisplayable()) {
+                JOptionPane.showMessageDialog(this, "Could not update like. See terminal.", "DB Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, DataAccess.EDT);
+    }
+
+    private static Review withLike(Review review, boolean liked, int likeCount) {
+        return new Review(review.reviewId(), review.userId(), review.username(), review.rating(),
+                review.reviewText(), likeCount, liked, review.createdAt());
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
     }
 
     private void deleteReview(int reviewId) {
-        String sql = "DELETE FROM Reviews WHERE review_id = ?";
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, reviewId);
-            if (pstmt.executeUpdate() > 0) {
+        DataAccess.supply(() -> ReviewRepository.delete(reviewId)).whenCompleteAsync((deleted, error) -> {
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, "Error deleting review.", "DB Error", JOptionPane.ERROR_MESSAGE);
+            } else if (deleted) {
                 JOptionPane.showMessageDialog(this, "Review deleted.", "DB Error", JOptionPane.ERROR_MESSAGE);
-                loadMovieDetails();
+                reloadAfterReviewChange();
+            }
+        }, DataAccess.EDT);
+    }
+
+    // One component stamps every visible review; nothing is created per review.
+    class ReviewRenderer extends JPanel implements ListCellRenderer<Review> {
+        private final JLabel headerLabel = new JLabel();
+        private final JTextArea textArea = new JTextArea();
+        private final JPanel actionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        private final JLabel likesLabel = new JLabel();
+        final JButton likeButton = new JButton();
+        final JButton editButton = new JButton("Edit");
+        final JButton deleteButton = new JButton("Delete");
+
+        ReviewRenderer() {
+            super(new BorderLayout(5, 5));
+            setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.LIGHT_GRAY), new EmptyBorder(8, 5, 8, 5)));
+            textArea.setWrapStyleWord(true);
+            textArea.setLineWrap(true);
+            textArea.setEditable(false);
+            textArea.setOpaque(false);
+            actionsPanel.setOpaque(false);
+            actionsPanel.add(likesLabel);
+            actionsPanel.add(likeButton);
+            actionsPanel.add(editButton);
+            actionsPanel.add(deleteButton);
+            add(headerLabel, BorderLayout.NORTH);
+            add(textArea, BorderLayout.CENTER);
+            add(actionsPanel, BorderLayout.SOUTH);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Review> list, Review review, int index, boolean isSelected, boolean cellHasFocus) {
+            setBackground(list.getBackground());
+            if (review == null) {
+                String placeholder = reviewsModel.failedToLoad(index) ? "Could not load reviews." : "Loading...";
+                headerLabel.setText(reviewsModel.getMessage() != null ? reviewsModel.getMessage() : placeholder);
+                textArea.setText("");
+                actionsPanel.setVisible(false);
+                return this;
             }
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "Error deleting review.", "DB Error", JOptionPane.ERROR_MESSAGE);
+            headerLabel.setText(String.format("<html><b>%s</b> (Rating: %.1f/5.0)</html>", escapeHtml(review.username()), review.rating()));
+            textArea.setText(review.reviewText());
+            boolean own = review.userId() == currentUserId;
+            likesLabel.setText(String.valueOf(review.likeCount()));
+            likeButton.setText(review.likedByViewer() ? "Unlike" : "Like");
+            likeButton.setEnabled(!own);
+            editButton.setVisible(own);
+            deleteButton.setVisible(own);
+            actionsPanel.setVisible(true);
+            return this;
+        }
+
+        void layoutForHitTest() {
+            doLayout();
+            actionsPanel.doLayout();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Hands out movie_id values for bulk loads, fetched from movie_id_seq a block at a time (one
+ * round trip per blockSize ids instead of a NEXTVAL per row). Ids of a block that is not used
+ * up, or whose rows are rolled back, are simply skipped: only uniqueness matters, not gaps.
+ */
+public final class MovieIdAllocator {
+
+    private static final String NEXT_BLOCK_SQL =
+            "SELECT movie_id_seq.NEXTVAL FROM dual CONNECT BY LEVEL <= ?";
+
+    private final Connection conn;
+    private final int blockSize;
+    private long[] block = new long[0];
+    private int next;
+
+    public MovieIdAllocator(Connection conn, int blockSize) {
+        this.conn = conn;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public long next() throws SQLException {
+        if (next == block.length) {
+            block = fetchBlock();
+            next = 0;
+        }
+        return block[next++];
+    }
+
+    private long[] fetchBlock() throws SQLException {
+        long[] ids = new long[blockSize];
+        int count = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(NEXT_BLOCK_SQL)) {
+            pstmt.setInt(1, blockSize);
+            pstmt.setFetchSize(blockSize);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next() && count < blockSize) {
+                ids[count++] = rs.getLong(1);
+            }
+        }
+        if (count < blockSize) {
+            throw new SQLException("movie_id_seq returned " + count + " of " + blockSize + " ids");
+        }
+        return ids;
+    }
+}
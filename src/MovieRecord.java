@@ -0,0 +1,31 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * One title parsed from an import file, ready for MovieBatchWriter.
+ * sourceKey identifies it across imports (see Movies.source_key); episodes is null for movies;
+ * status, studios and producers are null when the source has no such column.
+ */
+public record MovieRecord(String sourceKey, String title, int releaseYear, String director, String posterLink,
+                          String mediaType, String genres, String synopsis, String runtime, String ageRating,
+                          double externalScore, Integer episodes, String status, String studios, String producers) {
+
+    private static final char SEPARATOR = '\u001F';  // unit separator: can't occur in a CSV field we keep
+
+    /** SHA-256 (hex) of every column the import writes, stored as Movies.content_hash. */
+    public String contentHash() {
+        StringBuilder content = new StringBuilder(512);
+        for (Object value : new Object[]{title, releaseYear, director, posterLink, mediaType, genres, synopsis,
+                runtime, ageRating, externalScore, episodes, status, studios, producers}) {
+            content.append(value == null ? "\u0000" : value).append(SEPARATOR);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
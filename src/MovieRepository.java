@@ -0,0 +1,244 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All SQL against the Movies table.
+ *
+ * Every statement is one of a small, fixed set of SQL strings so the pooled connection's
+ * statement cache can reuse the parsed statement instead of preparing it again on each click.
+ */
+public final class MovieRepository {
+
+    // review_count / rating_sum are kept up to date by ReviewRepository, so no Reviews aggregate is needed.
+    private static final String AVG_RATING =
+            "CASE WHEN m.review_count > 0 THEN m.rating_sum / m.review_count END as avg_rating";
+
+    private static final String LIST_COLUMNS =
+            "SELECT m.movie_id, m.title, m.release_year, m.director, m.poster_link, " + AVG_RATING + " " +
+            "FROM Movies m ";
+
+    // Catalog listing is keyset-paginated on (title, movie_id); this is the sort order the pages rely on.
+    private static final String CATALOG_ORDER = " ORDER BY m.title, m.movie_id";
+    private static final String AFTER_ANCHOR = " AND (m.title > ? OR (m.title = ? AND m.movie_id > ?))";
+
+    // Exact genre match through the Movie_Genres (genre_id, movie_id) index.
+    private static final String GENRE_FILTER =
+            " AND m.movie_id IN (SELECT mg.movie_id FROM Movie_Genres mg JOIN Genres g ON g.genre_id = mg.genre_id WHERE g.name = ?)";
+
+    // Always bound with exactly ID_BATCH_SIZE ids (padded with -1) so it stays one cached statement.
+    private static final int ID_BATCH_SIZE = 100;
+    static final String FIND_BY_IDS_SQL =
+            LIST_COLUMNS + "WHERE m.movie_id IN (" + String.join(", ", Collections.nCopies(ID_BATCH_SIZE, "?")) + ")";
+
+    // Package-private: QueryPlanCheck runs the read queries through EXPLAIN PLAN.
+    static final String FIND_DETAILS_SQL =
+            "SELECT m.*, " + AVG_RATING + " FROM Movies m WHERE m.movie_id = ?";
+    static final String FIND_RATING_SQL =
+            "SELECT " + AVG_RATING + " FROM Movies m WHERE m.movie_id = ?";
+    private static final String UPDATE_POSTER_SQL =
+            "UPDATE Movies SET poster_link = ? WHERE movie_id = ?";
+    private static final String REPAIR_AGGREGATES_SQL =
+            "MERGE INTO Movies m USING (" +
+            "  SELECT mv.movie_id, COUNT(r.review_id) as review_count, NVL(SUM(r.rating), 0) as rating_sum " +
+            "  FROM Movies mv LEFT JOIN Reviews r ON r.movie_id = mv.movie_id GROUP BY mv.movie_id) agg " +
+            "ON (m.movie_id = agg.movie_id) " +
+            "WHEN MATCHED THEN UPDATE SET m.review_count = agg.review_count, m.rating_sum = agg.rating_sum " +
+            "WHERE m.review_count <> agg.review_count OR m.rating_sum <> agg.rating_sum";
+    private static final String NEXT_MOVIE_ID_SQL =
+            "SELECT movie_id_seq.NEXTVAL FROM dual";
+    private static final String INSERT_SQL =
+            "INSERT INTO Movies (movie_id, title, release_year, director, poster_link, media_type, genres) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private MovieRepository() {
+    }
+
+    /**
+     * What the catalog table is currently showing: a media type, optionally narrowed to one
+     * genre and/or a case-insensitive title substring (null = no restriction).
+     */
+    public record CatalogFilter(String mediaType, String genre, String titleTerm) {
+    }
+
+    /** One page of the catalog, starting right after anchor (null = first page). */
+    public static List<MediaItem> findCatalogPage(CatalogFilter filter, MediaItem anchor, int pageSize) throws SQLException {
+        String sql = catalogPageSql(filter, anchor != null);
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = bindCatalogFilter(pstmt, filter);
+            if (anchor != null) {
+                pstmt.setString(index++, anchor.title());
+                pstmt.setString(index++, anchor.title());
+                pstmt.setInt(index++, anchor.movieId());
+            }
+            pstmt.setInt(index, pageSize);
+            return readMediaItems(pstmt.executeQuery());
+        }
+    }
+
+    /**
+     * One page of the catalog by row offset. Only used when the user jumps to a page whose
+     * predecessor hasn't been loaded, so there is no keyset anchor to start from.
+     */
+    public static List<MediaItem> findCatalogPageAt(CatalogFilter filter, int offset, int pageSize) throws SQLException {
+        String sql = catalogOffsetSql(filter);
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = bindCatalogFilter(pstmt, filter);
+            pstmt.setInt(index++, offset);
+            pstmt.setInt(index, pageSize);
+            return readMediaItems(pstmt.executeQuery());
+        }
+    }
+
+    /** Total number of rows matching the filter, used to size the table's scrollbar. */
+    public static int countCatalog(CatalogFilter filter) throws SQLException {
+        String sql = countCatalogSql(filter);
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bindCatalogFilter(pstmt, filter);
+            ResultSet rs = pstmt.executeQuery();
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    // The catalog statements are built per filter shape; package-private so QueryPlanCheck can EXPLAIN them.
+    static String catalogPageSql(CatalogFilter filter, boolean afterAnchor) {
+        return LIST_COLUMNS + catalogWhere(filter) + (afterAnchor ? AFTER_ANCHOR : "") + CATALOG_ORDER + " FETCH FIRST ? ROWS ONLY";
+    }
+
+    static String catalogOffsetSql(CatalogFilter filter) {
+        return LIST_COLUMNS + catalogWhere(filter) + CATALOG_ORDER + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    }
+
+    static String countCatalogSql(CatalogFilter filter) {
+        return "SELECT COUNT(*) FROM Movies m " + catalogWhere(filter);
+    }
+
+    // Only a handful of distinct strings come out of this, so each one stays in the statement cache.
+    private static String catalogWhere(CatalogFilter filter) {
+        StringBuilder where = new StringBuilder("WHERE m.media_type = ?");
+        if (filter.titleTerm() != null) where.append(" AND UPPER(m.title) LIKE UPPER(?)");
+        if (filter.genre() != null) where.append(GENRE_FILTER);
+        return where.toString();
+    }
+
+    // Binds the catalogWhere() parameters and returns the next free parameter index.
+    private static int bindCatalogFilter(PreparedStatement pstmt, CatalogFilter filter) throws SQLException {
+        int index = 1;
+        pstmt.setString(index++, filter.mediaType());
+        if (filter.titleTerm() != null) pstmt.setString(index++, "%" + filter.titleTerm() + "%");
+        if (filter.genre() != null) pstmt.setString(index++, filter.genre());
+        return index;
+    }
+
+    /** The list rows for the given ids, in the same order; ids that no longer exist are skipped. */
+    public static List<MediaItem> findByIds(int[] movieIds) throws SQLException {
+        Map<Integer, MediaItem> byId = new HashMap<>();
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_BY_IDS_SQL)) {
+            for (int start = 0; start < movieIds.length; start += ID_BATCH_SIZE) {
+                for (int i = 0; i < ID_BATCH_SIZE; i++) {
+                    int index = start + i;
+                    pstmt.setInt(i + 1, index < movieIds.length ? movieIds[index] : -1);
+                }
+                for (MediaItem item : readMediaItems(pstmt.executeQuery())) {
+                    byId.put(item.movieId(), item);
+                }
+            }
+        }
+        List<MediaItem> items = new ArrayList<>(movieIds.length);
+        for (int movieId : movieIds) {
+            MediaItem item = byId.get(movieId);
+            if (item != null) items.add(item);
+        }
+        return items;
+    }
+
+    /** Loads the full details of one title, or null if it does not exist. */
+    public static MovieDetails findDetails(int movieId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_DETAILS_SQL)) {
+            pstmt.setInt(1, movieId);
+            ResultSet rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            return new MovieDetails(
+                    rs.getInt("movie_id"), rs.getString("title"), rs.getInt("release_year"), rs.getString("director"),
+                    rs.getString("poster_link"), rs.getString("media_type"), rs.getString("genres"), rs.getString("synopsis"),
+                    rs.getString("runtime"), rs.getString("age_rating"), rs.getDouble("external_score"), rs.getInt("episodes"),
+                    rs.getString("status"), rs.getString("studios"), rs.getString("producers"), rs.getDouble("avg_rating"));
+        }
+    }
+
+    /** Just the average rating of a title (0 when unrated), for refreshing a cached MovieDetails. */
+    public static double findAvgRating(int movieId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_RATING_SQL)) {
+            pstmt.setInt(1, movieId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getDouble("avg_rating") : 0;
+        }
+    }
+
+    public static void updatePosterLink(int movieId, String posterLink) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(UPDATE_POSTER_SQL)) {
+            pstmt.setString(1, posterLink);
+            pstmt.setInt(2, movieId);
+            pstmt.executeUpdate();
+        }
+        MovieDetailsCache.posterChanged(movieId, posterLink);
+    }
+
+    /** Adds a title with its genre links in one transaction, then updates the in-memory genre catalog and title index. */
+    public static int insert(String title, int year, String director, String posterLink, String mediaType, String genres) throws SQLException {
+        int newMovieId = DatabaseConnector.inTransaction(conn -> {
+            int movieId;
+            try (PreparedStatement pstmt = conn.prepareStatement(NEXT_MOVIE_ID_SQL)) {
+                ResultSet rs = pstmt.executeQuery();
+                rs.next();
+                movieId = rs.getInt(1);
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                pstmt.setInt(1, movieId);
+                pstmt.setString(2, title);
+                pstmt.setInt(3, year);
+                pstmt.setString(4, director);
+                pstmt.setString(5, posterLink);
+                pstmt.setString(6, mediaType);
+                pstmt.setString(7, genres);
+                pstmt.executeUpdate();
+            }
+            GenreRepository.linkGenres(conn, movieId, genres);
+            return movieId;
+        });
+        GenreCatalog.recordAdded(mediaType, GenreRepository.splitGenres(genres));
+        TitleIndex.recordAdded(newMovieId, mediaType, title, genres);
+        return newMovieId;
+    }
+
+    /**
+     * Recomputes review_count and rating_sum for every title from Reviews in one set-based
+     * statement. Returns how many titles had drifted and were corrected.
+     */
+    public static int repairRatingAggregates() throws SQLException {
+        return DatabaseConnector.inTransaction(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(REPAIR_AGGREGATES_SQL)) {
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+
+    static List<MediaItem> readMediaItems(ResultSet rs) throws SQLException {
+        List<MediaItem> items = new ArrayList<>();
+        while (rs.next()) {
+            double avgRating = rs.getDouble("avg_rating");
+            Double ratingObject = rs.wasNull() ? null : avgRating;
+            items.add(new MediaItem(rs.getInt("movie_id"), rs.getString("title"), rs.getInt("release_year"),
+                    rs.getString("director"), ratingObject, rs.getString("poster_link")));
+        }
+        return items;
+    }
+}
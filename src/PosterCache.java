@@ -0,0 +1,375 @@
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier cache for poster images, shared by every window.
+ *
+ * Tier 1 is an in-memory LRU of images already scaled to the size they are shown at,
+ * bounded by decoded bytes (width * height * 4). Tier 2 is a directory of the original
+ * downloaded files, named by the SHA-256 of the URL and bounded by total size; the least
+ * recently used files are deleted when it grows past its budget. Only a miss in both
+ * tiers goes to the network, and concurrent requests for the same URL share one download.
+ *
+ * Settings come from the poster.* keys in db.properties.
+ */
+public final class PosterCache {
+
+    private static final class Holder {
+        static final PosterCache SHARED = create();
+    }
+
+    /** The application-wide cache. */
+    public static PosterCache shared() {
+        return Holder.SHARED;
+    }
+
+    private final long memoryBudgetBytes;
+    private final long diskBudgetBytes;
+    private final Path directory;
+    private final HttpClient http;
+    private final Duration requestTimeout;
+    private final ExecutorService loader = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("poster-", 0).factory());
+
+    // Access-ordered, so iteration starts at the least recently used entry. Guarded by itself.
+    private final LinkedHashMap<String, BufferedImage> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+    // URLs that can't succeed this session (a 404, a bad URL, not an image), so scrolling past them
+    // doesn't refetch. Timeouts, 5xx and other transient errors are not remembered.
+    private final Map<String, Boolean> failedUrls = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > 1_000;
+        }
+    };
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> downloads = new ConcurrentHashMap<>();
+    private final AtomicLong diskBytes = new AtomicLong(-1);  // -1 until the directory has been measured
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder memoryMisses = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder downloadCount = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder downloadedBytes = new LongAdder();
+    private final LongAdder evictedFiles = new LongAdder();
+
+    public PosterCache(Properties config) {
+        this.memoryBudgetBytes = Math.max(1, DatabaseConnector.longProperty(config, "poster.memoryCacheMB", 64)) * 1024 * 1024;
+        this.diskBudgetBytes = Math.max(1, DatabaseConnector.longProperty(config, "poster.diskCacheMB", 256)) * 1024 * 1024;
+        this.directory = Paths.get(config.getProperty("poster.diskCacheDir", "cache/posters"));
+        this.requestTimeout = Duration.ofMillis(DatabaseConnector.longProperty(config, "poster.requestTimeoutMs", 10_000));
+        this.http = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(requestTimeout)
+                .build();
+    }
+
+    private static PosterCache create() {
+        PosterCache cache = new PosterCache(DatabaseConnector.loadConfig());
+        cache.loader.execute(cache::measureDisk);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("Poster " + cache.getStats()), "poster-cache-stats"));
+        return cache;
+    }
+
+    /** The scaled image if it is already in memory, else null. Never blocks; safe on the EDT. */
+    public BufferedImage getIfCached(String url, int width, int height) {
+        synchronized (memory) {
+            BufferedImage image = memory.get(memoryKey(url, width, height));
+            if (image != null) memoryHits.increment();
+            return image;
+        }
+    }
+
+    /** True if the URL already failed this session, so load() would return null without trying. */
+    public boolean isKnownFailure(String url) {
+        synchronized (failedUrls) {
+            return failedUrls.containsKey(url);
+        }
+    }
+
+    /** Loads on a background thread; completes with null if the URL has no usable image. */
+    public CompletableFuture<BufferedImage> loadAsync(String url, int width, int height) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(url, width, height);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, loader);
+    }
+
+    /**
+     * The poster scaled to width x height: from memory, else from disk, else downloaded.
+     * Blocks on I/O, so call it off the EDT. Returns null if the URL doesn't yield an image.
+     */
+    public BufferedImage load(String url, int width, int height) throws IOException {
+        BufferedImage image = getIfCached(url, width, height);
+        if (image != null) {
+            return image;
+        }
+        memoryMisses.increment();
+        synchronized (failedUrls) {
+            if (failedUrls.containsKey(url)) return null;
+        }
+        BufferedImage original = decode(url, originalBytes(url));
+        if (original == null) {
+            return null;
+        }
+        image = scale(original, width, height);
+        remember(memoryKey(url, width, height), image);
+        return image;
+    }
+
+    public Stats getStats() {
+        long memoryUsed;
+        int memoryEntries;
+        synchronized (memory) {
+            memoryUsed = memoryBytes;
+            memoryEntries = memory.size();
+        }
+        return new Stats(memoryHits.sum(), memoryMisses.sum(), diskHits.sum(), downloadCount.sum(), failures.sum(),
+                memoryEntries, memoryUsed, memoryBudgetBytes, Math.max(0, diskBytes.get()), diskBudgetBytes,
+                downloadedBytes.sum(), evictedFiles.sum());
+    }
+
+    // --- Tier 2 and network ---
+
+    private byte[] originalBytes(String url) throws IOException {
+        Path file = directory.resolve(fileName(url));
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            diskHits.increment();
+            // The modification time doubles as "last used" for disk eviction.
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return bytes;
+        } catch (NoSuchFileException e) {
+            // fall through to the network
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> inFlight = downloads.putIfAbsent(url, mine);
+        if (inFlight != null) {
+            return joinDownload(inFlight);
+        }
+        try {
+            byte[] bytes;
+            try {
+                bytes = download(url);
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                mine.completeExceptionally(e);
+                throw e;
+            }
+            mine.complete(bytes);
+            store(file, bytes);
+            return bytes;
+        } finally {
+            downloads.remove(url, mine);
+        }
+    }
+
+    private byte[] download(String url) throws IOException {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url)).timeout(requestTimeout).GET().build();
+        } catch (IllegalArgumentException e) {
+            markFailed(url);
+            throw new IOException("Invalid poster URL: " + url, e);
+        }
+        try {
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            int status = response.statusCode();
+            if (status != 200) {
+                // A 4xx won't change by asking again, except a timeout (408) or rate limit (429).
+                if (status >= 400 && status < 500 && status != 408 && status != 429) markFailed(url);
+                throw new IOException("HTTP " + status + " for " + url);
+            }
+            downloadCount.increment();
+            downloadedBytes.add(response.body().length);
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + url, e);
+        }
+    }
+
+    private static byte[] joinDownload(CompletableFuture<byte[]> download) throws IOException {
+        try {
+            return download.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw e;
+        }
+    }
+
+    // Written to a temp file and moved into place so readers never see a partial file. A failure
+    // is only logged: the downloaded bytes are still used, they just aren't cached on disk.
+    private void store(Path file, byte[] bytes) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "poster", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write poster cache file " + file + ": " + e.getMessage());
+            return;
+        }
+        if (diskBytes.get() < 0) {
+            measureDisk();
+        } else if (diskBytes.addAndGet(bytes.length) > diskBudgetBytes) {
+            evictDisk();
+        }
+    }
+
+    private synchronized void measureDisk() {
+        if (diskBytes.get() >= 0) return;
+        long total = 0;
+        for (CachedFile file : listFiles()) total += file.size();
+        diskBytes.set(total);
+        if (total > diskBudgetBytes) evictDisk();
+    }
+
+    // Deletes least recently used files until the directory is back under 90% of its budget.
+    private synchronized void evictDisk() {
+        List<CachedFile> files = listFiles();
+        files.sort(Comparator.comparingLong(CachedFile::lastUsed));
+        long total = 0;
+        for (CachedFile file : files) total += file.size();
+        long target = diskBudgetBytes * 9 / 10;
+        for (Iterator<CachedFile> it = files.iterator(); it.hasNext() && total > target; ) {
+            CachedFile file = it.next();
+            try {
+                Files.deleteIfExists(file.path());
+                total -= file.size();
+                evictedFiles.increment();
+            } catch (IOException e) {
+                System.err.println("Could not evict poster cache file " + file.path() + ": " + e.getMessage());
+            }
+        }
+        diskBytes.set(total);
+    }
+
+    private List<CachedFile> listFiles() {
+        List<CachedFile> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.img")) {
+            for (Path path : stream) {
+                try {
+                    files.add(new CachedFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+                } catch (IOException e) {
+                    // deleted meanwhile
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not list poster cache " + directory + ": " + e.getMessage());
+        }
+        return files;
+    }
+
+    private record CachedFile(Path path, long size, long lastUsed) {
+    }
+
+    // --- Tier 1 ---
+
+    private void remember(String key, BufferedImage image) {
+        long size = (long) image.getWidth() * image.getHeight() * 4;
+        synchronized (memory) {
+            BufferedImage previous = memory.put(key, image);
+            if (previous != null) memoryBytes -= (long) previous.getWidth() * previous.getHeight() * 4;
+            memoryBytes += size;
+            for (Iterator<BufferedImage> it = memory.values().iterator(); it.hasNext() && memoryBytes > memoryBudgetBytes; ) {
+                BufferedImage eldest = it.next();
+                if (eldest == image) break;
+                memoryBytes -= (long) eldest.getWidth() * eldest.getHeight() * 4;
+                it.remove();
+            }
+        }
+    }
+
+    private BufferedImage decode(String url, byte[] bytes) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (image == null) {
+            failures.increment();
+            markFailed(url);
+        }
+        return image;
+    }
+
+    // Remembers the URL as one that won't work this session; the caller counts the failure.
+    private void markFailed(String url) {
+        synchronized (failedUrls) {
+            failedUrls.put(url, Boolean.TRUE);
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static String memoryKey(String url, int width, int height) {
+        return width + "x" + height + " " + url;
+    }
+
+    private static String fileName(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + ".img";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
+    public record Stats(long memoryHits, long memoryMisses, long diskHits, long downloads, long failures,
+                        int memoryEntries, long memoryBytes, long memoryBudgetBytes,
+                        long diskBytes, long diskBudgetBytes, long downloadedBytes, long evictedFiles) {
+        @Override
+        public String toString() {
+            return String.format("cache[memoryHits=%d, memoryMisses=%d, diskHits=%d, downloads=%d, failures=%d, memory=%d images/%.1f of %.0f MB, disk=%.1f of %.0f MB, downloaded=%.1f MB, evictedFiles=%d]",
+                    memoryHits, memoryMisses, diskHits, downloads, failures, memoryEntries, memoryBytes / 1048576.0, memoryBudgetBytes / 1048576.0,
+                    diskBytes / 1048576.0, diskBudgetBytes / 1048576.0, downloadedBytes / 1048576.0, evictedFiles);
+        }
+    }
+}
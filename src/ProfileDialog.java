@@ -3,18 +3,16 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
 
 public class ProfileDialog extends JDialog {
 
     private int userId;
     private String username;
     private JLabel profilePictureLabel;
+    private String shownPicturePath;  // the latest picture asked for, EDT only
 
     public ProfileDialog(Frame parent, int userId, String username) {
         super(parent, "Profile for " + username, true);
@@ -63,23 +61,17 @@ public class ProfileDialog extends JDialog {
 
     private void loadUserProfile(JPanel infoPanel, JTextArea reviewsArea) {
         // --- CORRECTED: This query no longer asks for the non-existent 'join_date' column ---
-        String sql = "SELECT email, profile_picture_path FROM Users WHERE user_id = ?";
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, this.userId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                infoPanel.add(new JLabel("Email: " + rs.getString("email")));
+        DataAccess.supply(() -> UserRepository.findById(this.userId)).whenCompleteAsync((user, error) -> {
+            if (error != null) {
+                infoPanel.add(new JLabel("Could not load user details."));
+            } else if (user != null) {
+                infoPanel.add(new JLabel("Email: " + user.email()));
                 
                 // Load the profile picture
-                String imagePath = rs.getString("profile_picture_path");
-                displayProfilePicture(imagePath);
+                displayProfilePicture(user.profilePicturePath());
             }
-        } catch (SQLException ex) {
-            infoPanel.add(new JLabel("Could not load user details."));
-        }
+            infoPanel.revalidate();
+        }, DataAccess.EDT);
         
         loadUserReviews(reviewsArea);
     }
@@ -92,72 +84,68 @@ public class ProfileDialog extends JDialog {
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
-            try {
-                File destDir = new File("profile_pics");
-                if (!destDir.exists()) {
-                    destDir.mkdir();
+            // Decoding and scaling happen once, here, off the EDT; the store dedupes identical uploads.
+            DataAccess.supply(() -> {
+                String key;
+                try {
+                    key = ProfilePictureStore.store(selectedFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-
-                String newFileName = this.userId + "_" + selectedFile.getName();
-                File destFile = new File(destDir, newFileName);
-
-                Files.copy(selectedFile.toPath(), destFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                
-                String dbPath = destFile.getPath().replace("\\", "/");
-                updateProfilePicturePath(dbPath);
-                displayProfilePicture(dbPath);
-
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Could not save image.", "Error", JOptionPane.ERROR_MESSAGE);
-                ex.printStackTrace();
-            }
-        }
-    }
-
-    private void updateProfilePicturePath(String path) throws SQLException {
-        String sql = "UPDATE Users SET profile_picture_path = ? WHERE user_id = ?";
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, path);
-            pstmt.setInt(2, this.userId);
-            pstmt.executeUpdate();
+                UserRepository.updateProfilePicturePath(this.userId, key);
+                return key;
+            }).whenCompleteAsync((key, error) -> {
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this, "Could not save image.", "Error", JOptionPane.ERROR_MESSAGE);
+                    DataAccess.unwrap(error).printStackTrace();
+                    return;
+                }
+                displayProfilePicture(key);
+                // The previous picture may now be unreferenced.
+                DataAccess.supply(ProfilePictureStore::collectGarbage).exceptionally(gcError -> {
+                    DataAccess.unwrap(gcError).printStackTrace();
+                    return 0;
+                });
+            }, DataAccess.EDT);
         }
     }
 
+    // Reads the file off the EDT; a slower read for a path that has since been replaced is dropped.
     private void displayProfilePicture(String imagePath) {
-        ImageIcon profileIcon;
-        if (imagePath != null && new File(imagePath).exists()) {
-            profileIcon = new ImageIcon(imagePath);
-            Image scaledImage = profileIcon.getImage().getScaledInstance(100, 100, Image.SCALE_SMOOTH);
-            profilePictureLabel.setIcon(new ImageIcon(scaledImage));
-            profilePictureLabel.setText(""); // Clear text when image is present
-        } else {
-            profilePictureLabel.setText("No Image");
-            profilePictureLabel.setIcon(null);
-        }
+        shownPicturePath = imagePath;
+        DataAccess.supply(() -> ProfilePictureStore.load(imagePath, ProfilePictureStore.PROFILE_SIZE)).whenCompleteAsync((picture, error) -> {
+            if (!Objects.equals(imagePath, shownPicturePath)) return;
+            if (error != null) {
+                DataAccess.unwrap(error).printStackTrace();
+            }
+            if (picture != null) {
+                profilePictureLabel.setIcon(new ImageIcon(picture));
+                profilePictureLabel.setText(""); // Clear text when image is present
+            } else {
+                profilePictureLabel.setText("No Image");
+                profilePictureLabel.setIcon(null);
+            }
+        }, DataAccess.EDT);
     }
 
     private void loadUserReviews(JTextArea reviewsArea) {
-        String sql = "SELECT m.title, r.rating, r.review_text FROM Reviews r JOIN Movies m ON r.movie_id = m.movie_id WHERE r.user_id = ? ORDER BY r.created_at DESC";
-        StringBuilder sb = new StringBuilder();
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, this.userId);
-            ResultSet rs = pstmt.executeQuery();
-            boolean found = false;
-            while (rs.next()) {
-                found = true;
-                sb.append("Movie: ").append(rs.getString("title")).append("\n");
-                sb.append("Rating: ").append(rs.getDouble("rating")).append("/5.0\n");
-                sb.append("\"").append(rs.getString("review_text")).append("\"\n");
+        DataAccess.supply(() -> ReviewRepository.findByUser(this.userId)).whenCompleteAsync((reviews, error) -> {
+            if (error != null) {
+                reviewsArea.setText("Error loading reviews.");
+                DataAccess.unwrap(error).printStackTrace();
+                return;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (UserReview review : reviews) {
+                sb.append("Movie: ").append(review.movieTitle()).append("\n");
+                sb.append("Rating: ").append(review.rating()).append("/5.0\n");
+                sb.append("\"").append(review.reviewText()).append("\"\n");
                 sb.append("----------------------------------------------------\n");
             }
-            if (!found) {
+            if (reviews.isEmpty()) {
                 sb.append("You have not written any reviews yet.");
             }
             reviewsArea.setText(sb.toString());
-        } catch (SQLException ex) {
-            reviewsArea.setText("Error loading reviews.");
-            ex.printStackTrace();
-        }
+        }, DataAccess.EDT);
     }
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Profile pictures, stored once per distinct image and pre-rendered at the sizes the UI shows.
+ *
+ * An upload is decoded once, center-cropped to a square and written as
+ * profile_pics/&lt;sha256&gt;_60.png and _100.png, the hash being that of the uploaded file.
+ * Users.profile_picture_path holds the key "profile_pics/&lt;sha256&gt;", so users who upload
+ * the same image share its files. Showing an avatar reads one small PNG, once per run:
+ * decoded variants stay in a small in-memory LRU.
+ *
+ * Files no user references any more are deleted by {@link #collectGarbage}, which runs after
+ * every upload. Paths from before this store (profile_pics/&lt;userId&gt;_&lt;name&gt;) still
+ * display; they are scaled on first use and never collected, since nothing proves that no
+ * one (or no bundled sample data) still uses them.
+ */
+public final class ProfilePictureStore {
+
+    public static final int THUMBNAIL_SIZE = 60;  // MainFrame
+    public static final int PROFILE_SIZE = 100;   // ProfileDialog
+    private static final int[] SIZES = {THUMBNAIL_SIZE, PROFILE_SIZE};
+
+    private static final Path DIRECTORY = Paths.get("profile_pics");
+    private static final String KEY_PREFIX = "profile_pics/";
+    private static final Pattern KEY = Pattern.compile("profile_pics/([0-9a-f]{64})");
+    private static final Pattern VARIANT_FILE = Pattern.compile("([0-9a-f]{64})_\\d+\\.png");
+    // Files younger than this are never collected: the upload's UPDATE may not have committed yet.
+    private static final long GC_GRACE_MILLIS = 10 * 60 * 1000;
+    private static final int MEMORY_ENTRIES = 32;
+
+    // path@size -> decoded variant. Access-ordered LRU, guarded by itself.
+    private static final Map<String, BufferedImage> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+
+    private ProfilePictureStore() {
+    }
+
+    /**
+     * Stores an uploaded image and returns the key to save in Users.profile_picture_path.
+     * Does file I/O and image scaling, so call it off the EDT.
+     */
+    public static String store(File upload) throws IOException {
+        byte[] bytes = Files.readAllBytes(upload.toPath());
+        String hash = sha256(bytes);
+        Files.createDirectories(DIRECTORY);
+        BufferedImage original = null;
+        for (int size : SIZES) {
+            Path file = variantFile(hash, size);
+            if (Files.exists(file)) {
+                // Already stored, maybe for another user: reuse it and restart its GC grace period.
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                continue;
+            }
+            if (original == null) {
+                original = ImageIO.read(new ByteArrayInputStream(bytes));
+                if (original == null) {
+                    throw new IOException("Not a supported image: " + upload.getName());
+                }
+            }
+            write(file, squareScaled(original, size));
+        }
+        return KEY_PREFIX + hash;
+    }
+
+    /** The picture at path (a store key or a legacy file path) as a size x size image, or null if there is none. */
+    public static BufferedImage load(String path, int size) {
+        if (path == null) {
+            return null;
+        }
+        String memoryKey = path + "@" + size;
+        synchronized (memory) {
+            BufferedImage image = memory.get(memoryKey);
+            if (image != null) return image;
+        }
+        Matcher key = KEY.matcher(path);
+        Path file = key.matches() ? variantFile(key.group(1), size) : Paths.get(path);
+        BufferedImage image;
+        try {
+            if (!Files.isRegularFile(file)) return null;
+            image = ImageIO.read(file.toFile());
+        } catch (IOException e) {
+            System.err.println("Could not read profile picture " + file + ": " + e.getMessage());
+            return null;
+        }
+        if (image == null) {
+            return null;
+        }
+        if (image.getWidth() != size || image.getHeight() != size) {
+            image = squareScaled(image, size); // legacy upload, stored at its original size
+        }
+        synchronized (memory) {
+            memory.put(memoryKey, image);
+        }
+        return image;
+    }
+
+    /**
+     * Deletes every variant file in profile_pics/ that no user's profile_picture_path refers to
+     * (and that is older than the grace period). Other files, like legacy uploads, are left alone.
+     * Returns the number of files deleted.
+     */
+    public static int collectGarbage() throws SQLException {
+        Set<String> referenced = UserRepository.findAllProfilePicturePaths();
+        if (!Files.isDirectory(DIRECTORY)) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - GC_GRACE_MILLIS;
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DIRECTORY)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher variant = VARIANT_FILE.matcher(name);
+                if (!variant.matches()) continue;
+                try {
+                    if (referenced.contains(KEY_PREFIX + variant.group(1)) || Files.getLastModifiedTime(file).toMillis() > cutoff) continue;
+                    if (Files.deleteIfExists(file)) deleted++;
+                } catch (IOException e) {
+                    System.err.println("Could not collect profile picture " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not list " + DIRECTORY + ": " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    private static Path variantFile(String hash, int size) {
+        return DIRECTORY.resolve(hash + "_" + size + ".png");
+    }
+
+    // Written to a temp file and moved into place so readers never see a partial file.
+    private static void write(Path file, BufferedImage image) throws IOException {
+        Path temp = Files.createTempFile(DIRECTORY, "upload", ".tmp");
+        try {
+            ImageIO.write(image, "png", temp.toFile());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Center-crops to a square, then halves repeatedly before the last bicubic step so large photos don't alias.
+    private static BufferedImage squareScaled(BufferedImage source, int size) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        BufferedImage current = source.getSubimage((source.getWidth() - side) / 2, (source.getHeight() - side) / 2, side, side);
+        int currentSize = side;
+        do {
+            currentSize = Math.max(size, currentSize / 2);
+            current = draw(current, currentSize);
+        } while (currentSize > size);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int size) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, size, size, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
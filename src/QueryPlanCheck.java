@@ -0,0 +1,183 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plan regression check for the application's hot queries.
+ *
+ * Runs every read statement the UI issues through EXPLAIN PLAN and fails (exit code 1)
+ * if any of them would do a TABLE ACCESS FULL. The statements are the repositories' own
+ * SQL constants, so a query edited without a matching index shows up here.
+ *
+ * Plans only mean something against realistic volumes, so run it on a seeded database:
+ *   java -cp ... QueryPlanCheck --seed    adds synthetic users/reviews/likes/watchlist rows
+ *                                         (usernames plancheck_*) and gathers statistics
+ *   java -cp ... QueryPlanCheck           checks the plans
+ *   java -cp ... QueryPlanCheck --clean   removes the synthetic rows again
+ * The movie catalog itself should come from DataImporter and AnimeImporter.
+ */
+public class QueryPlanCheck {
+
+    private static final String SEED_USER_PREFIX = "plancheck_";
+    private static final int SEED_USERS = 500;
+    private static final String[] STATS_TABLES = {"USERS", "MOVIES", "GENRES", "MOVIE_GENRES", "REVIEWS", "WATCHLIST", "REVIEW_LIKES"};
+
+    public static void main(String[] args) {
+        try {
+            if (args.length > 0 && args[0].equals("--seed")) {
+                seed();
+            } else if (args.length > 0 && args[0].equals("--clean")) {
+                clean();
+            } else {
+                System.exit(checkPlans() ? 0 : 1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Database error during plan check: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /** Every hot read query, by name. Bind values don't matter to EXPLAIN PLAN. */
+    private static Map<String, String> hotQueries() {
+        MovieRepository.CatalogFilter all = new MovieRepository.CatalogFilter("movie", null, null);
+        MovieRepository.CatalogFilter byGenre = new MovieRepository.CatalogFilter("movie", "Drama", null);
+        MovieRepository.CatalogFilter byTitle = new MovieRepository.CatalogFilter("movie", null, "knight");
+
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("catalog first page", MovieRepository.catalogPageSql(all, false));
+        queries.put("catalog next page", MovieRepository.catalogPageSql(all, true));
+        queries.put("catalog page by offset", MovieRepository.catalogOffsetSql(all));
+        queries.put("catalog count", MovieRepository.countCatalogSql(all));
+        queries.put("catalog by genre", MovieRepository.catalogPageSql(byGenre, true));
+        queries.put("catalog count by genre", MovieRepository.countCatalogSql(byGenre));
+        queries.put("catalog title search (fallback)", MovieRepository.catalogPageSql(byTitle, false));
+        queries.put("titles by id", MovieRepository.FIND_BY_IDS_SQL);
+        queries.put("movie details", MovieRepository.FIND_DETAILS_SQL);
+        queries.put("movie rating", MovieRepository.FIND_RATING_SQL);
+        queries.put("reviews of a movie", ReviewRepository.FIND_FIRST_PAGE_BY_MOVIE_SQL);
+        queries.put("reviews of a movie, next page", ReviewRepository.FIND_NEXT_PAGE_BY_MOVIE_SQL);
+        queries.put("reviews of a movie by offset", ReviewRepository.FIND_PAGE_AT_BY_MOVIE_SQL);
+        queries.put("review count of a movie", ReviewRepository.COUNT_BY_MOVIE_SQL);
+        queries.put("reviews of a user", ReviewRepository.FIND_BY_USER_SQL);
+        queries.put("has reviewed", ReviewRepository.HAS_REVIEWED_SQL);
+        queries.put("lock review", ReviewRepository.LOCK_REVIEW_SQL);
+        queries.put("unlike review (batched)", ReviewRepository.UNLIKE_SQL);
+        queries.put("recount likes of a review", ReviewRepository.RECOUNT_LIKES_SQL);
+        queries.put("watchlist of a user", WatchlistRepository.FIND_BY_USER_SQL);
+        queries.put("watchlist ids of a user", WatchlistRepository.FIND_IDS_BY_USER_SQL);
+        queries.put("watchlist remove", WatchlistRepository.DELETE_SQL);
+        queries.put("login", UserRepository.AUTHENTICATE_SQL);
+        queries.put("user by id", UserRepository.FIND_BY_ID_SQL);
+        return queries;
+    }
+
+    private static boolean checkPlans() throws SQLException {
+        int failures = 0;
+        int number = 0;
+        try (Connection conn = DatabaseConnector.getConnection(); Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, String> query : hotQueries().entrySet()) {
+                String statementId = "plancheck_" + (++number);
+                stmt.execute("DELETE FROM plan_table WHERE statement_id = '" + statementId + "'");
+                stmt.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + toNamedBinds(query.getValue()));
+
+                List<String> plan = new ArrayList<>();
+                List<String> fullScans = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT LPAD(' ', 2 * depth) || operation || NVL2(options, ' ' || options, '') || NVL2(object_name, ' ' || object_name, '') AS step, " +
+                        "operation, options, object_name FROM plan_table WHERE statement_id = ? ORDER BY id")) {
+                    pstmt.setString(1, statementId);
+                    ResultSet rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        plan.add(rs.getString("step"));
+                        if ("TABLE ACCESS".equals(rs.getString("operation")) && "FULL".equals(rs.getString("options"))) {
+                            fullScans.add(rs.getString("object_name"));
+                        }
+                    }
+                }
+                stmt.execute("DELETE FROM plan_table WHERE statement_id = '" + statementId + "'");
+
+                if (fullScans.isEmpty()) {
+                    System.out.println("OK    " + query.getKey());
+                } else {
+                    failures++;
+                    System.out.println("FAIL  " + query.getKey() + ": full scan of " + String.join(", ", fullScans));
+                    System.out.println("      " + query.getValue());
+                    for (String step : plan) {
+                        System.out.println("      " + step);
+                    }
+                }
+            }
+        }
+        System.out.println(failures == 0 ? "\n✅ All hot queries use indexes." : "\n❌ " + failures + " hot queries regressed to a full scan.");
+        return failures == 0;
+    }
+
+    // EXPLAIN PLAN is sent as plain text, so JDBC '?' markers become Oracle bind names.
+    private static String toNamedBinds(String sql) {
+        StringBuilder named = new StringBuilder();
+        int bind = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                named.append(":b").append(++bind);
+            } else {
+                named.append(c);
+            }
+        }
+        return named.toString();
+    }
+
+    private static void seed() throws SQLException {
+        System.out.println("Seeding synthetic users, reviews, likes and watchlist entries...");
+        DatabaseConnector.inTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO Users (user_id, username, password_hash) " +
+                        "SELECT user_id_seq.NEXTVAL, '" + SEED_USER_PREFIX + "' || LEVEL, 'x' FROM dual CONNECT BY LEVEL <= " + SEED_USERS);
+                String seedUsers = "(SELECT user_id FROM Users WHERE username LIKE '" + SEED_USER_PREFIX + "%')";
+                int reviews = stmt.executeUpdate("INSERT INTO Reviews (review_id, movie_id, user_id, rating, review_text) " +
+                        "SELECT review_id_seq.NEXTVAL, m.movie_id, u.user_id, (MOD(m.movie_id + u.user_id, 10) + 1) / 2, 'Plan check review' " +
+                        "FROM " + seedUsers + " u JOIN Movies m ON MOD(m.movie_id + u.user_id * 7, 400) = 0");
+                int likes = stmt.executeUpdate("INSERT INTO Review_Likes (like_id, review_id, user_id) " +
+                        "SELECT like_id_seq.NEXTVAL, r.review_id, u.user_id " +
+                        "FROM " + seedUsers + " u JOIN Reviews r ON MOD(r.review_id + u.user_id, 500) = 0");
+                int watchlist = stmt.executeUpdate("INSERT INTO Watchlist (watchlist_id, user_id, movie_id) " +
+                        "SELECT watchlist_id_seq.NEXTVAL, u.user_id, m.movie_id " +
+                        "FROM " + seedUsers + " u JOIN Movies m ON MOD(m.movie_id + u.user_id * 3, 300) = 0");
+                System.out.println("Inserted " + reviews + " reviews, " + likes + " likes, " + watchlist + " watchlist entries.");
+            }
+            return null;
+        });
+        MovieRepository.repairRatingAggregates();
+        ReviewRepository.repairLikeCounts();
+        gatherStats();
+        System.out.println("✅ Seeding complete. Run QueryPlanCheck without arguments to check the plans.");
+    }
+
+    private static void clean() throws SQLException {
+        // Reviews, likes and watchlist rows go with the users (ON DELETE CASCADE).
+        int users = DatabaseConnector.inTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate("DELETE FROM Users WHERE username LIKE '" + SEED_USER_PREFIX + "%'");
+            }
+        });
+        MovieRepository.repairRatingAggregates();
+        ReviewRepository.repairLikeCounts();
+        gatherStats();
+        System.out.println("✅ Removed " + users + " synthetic users and their rows.");
+    }
+
+    private static void gatherStats() throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("BEGIN DBMS_STATS.GATHER_TABLE_STATS(USER, ?, cascade => TRUE); END;")) {
+            for (String table : STATS_TABLES) {
+                pstmt.setString(1, table);
+                pstmt.execute();
+            }
+        }
+    }
+}
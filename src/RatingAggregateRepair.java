@@ -0,0 +1,27 @@
+import java.sql.SQLException;
+
+/**
+ * Recomputes Movies.review_count and Movies.rating_sum from the Reviews table, and
+ * Reviews.like_count from Review_Likes.
+ *
+ * The app keeps these columns current on every review and like write, but rows
+ * removed behind its back (e.g. ON DELETE CASCADE when a user is deleted, or manual
+ * SQL) can make them drift. Run this after such maintenance or on a schedule:
+ *   java -cp ... RatingAggregateRepair
+ */
+public class RatingAggregateRepair {
+
+    public static void main(String[] args) {
+        System.out.println("Recomputing rating aggregates and like counts...");
+        long start = System.currentTimeMillis();
+        try {
+            int repaired = MovieRepository.repairRatingAggregates();
+            int likesRepaired = ReviewRepository.repairLikeCounts();
+            System.out.println("✅ Done in " + (System.currentTimeMillis() - start) + " ms. Titles corrected: " + repaired
+                    + ", reviews with corrected like counts: " + likesRepaired);
+        } catch (SQLException e) {
+            System.err.println("Database error during repair: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
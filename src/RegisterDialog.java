@@ -1,7 +1,7 @@
 // Place this file in the 'src' folder
 import javax.swing.*;
 import java.awt.*;
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.Arrays;
 
 public class RegisterDialog extends JDialog {
@@ -43,17 +43,17 @@ public class RegisterDialog extends JDialog {
         if (!Arrays.equals(pfPassword.getPassword(), pfConfirmPassword.getPassword())) {
             JOptionPane.showMessageDialog(this, "Passwords do not match.", "Error", JOptionPane.ERROR_MESSAGE); return;
         }
-        String sql = "INSERT INTO Users (user_id, username, email, password_hash) VALUES (user_id_seq.NEXTVAL, ?, ?, ?)";
-        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            pstmt.setString(2, tfEmail.getText().trim());
-            pstmt.setString(3, new String(pfPassword.getPassword()));
-            pstmt.executeUpdate();
-            JOptionPane.showMessageDialog(this, "Registration successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
-            dispose();
-        } catch (SQLException ex) {
-            if (ex.getErrorCode() == 1) JOptionPane.showMessageDialog(this, "Username or email already exists.", "Error", JOptionPane.ERROR_MESSAGE);
+        String email = tfEmail.getText().trim();
+        String password = new String(pfPassword.getPassword());
+        DataAccess.run(() -> UserRepository.register(username, email, password)).whenCompleteAsync((ignored, error) -> {
+            if (error == null) {
+                JOptionPane.showMessageDialog(this, "Registration successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                dispose();
+                return;
+            }
+            Throwable ex = DataAccess.unwrap(error);
+            if (ex instanceof SQLException sqlEx && sqlEx.getErrorCode() == 1) JOptionPane.showMessageDialog(this, "Username or email already exists.", "Error", JOptionPane.ERROR_MESSAGE);
             else JOptionPane.showMessageDialog(this, "Database Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, DataAccess.EDT);
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Where an import reports the source lines that did not become rows, as an RFC 4180 CSV with the
+ * header line,stage,column,reason,title: stage is "parse" (the importer refused the record),
+ * "duplicate" (ImportDeduplicator found the title already imported) or "database" (the row
+ * failed even on its own), column is the source column or Movies column at
+ * fault when known, title what the row was called if it got that far. Shared by all threads of
+ * an import.
+ *
+ * A new import replaces the file. A resumed one keeps the rejects of the lines before its resume
+ * point and appends to them; later lines are dropped, since they are read again. The file is
+ * deleted on close if it has no rejects at all.
+ */
+public final class RejectsFile implements Closeable {
+
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_DUPLICATE = "duplicate";
+    public static final String STAGE_DATABASE = "database";
+
+    private static final String HEADER = "line,stage,column,reason,title";
+
+    private final Path path;
+    private final BufferedWriter out;
+    private final int carried;  // rejects kept from before the resume point
+    private int count;  // guarded by this
+
+    /** resumeFrom: where a resumed import continues, or null for a new one. */
+    public RejectsFile(Path path, CsvReader.Position resumeFrom) throws IOException {
+        this.path = path;
+        boolean resume = resumeFrom != null && Files.isRegularFile(path);
+        this.carried = resume ? keepBefore(path, resumeFrom.line()) : 0;
+        if (resume) {
+            this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } else {
+            this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            out.write(HEADER);
+            out.newLine();
+        }
+    }
+
+    public synchronized void reject(long line, String stage, String column, String reason, String title) throws IOException {
+        count++;
+        write(out, line, stage, column, reason, title);
+    }
+
+    /** Writes out the buffered rejects, so a checkpoint saved after this never points past one that is lost. */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    /** Rejects of this run (not counting those kept from before a resume). */
+    public synchronized int count() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+        if (count + carried == 0) {
+            Files.deleteIfExists(path);
+        } else {
+            System.out.println(count + " rejected lines written to " + path
+                    + (carried > 0 ? " (after " + carried + " from before the resume point)" : ""));
+        }
+    }
+
+    // Rewrites the file with only the rejects of lines before line; returns how many there are.
+    private static int keepBefore(Path path, long line) throws IOException {
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "rejects", ".tmp");
+        int kept = 0;
+        try {
+            try (CsvReader csv = CsvReader.open(path.toString());
+                 BufferedWriter copy = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                copy.write(HEADER);
+                copy.newLine();
+                csv.next(); // header
+                while (csv.next()) {
+                    if (csv.fieldCount() < 5 || !csv.get(0).matches("\\d+") || Long.parseLong(csv.get(0)) >= line) continue;
+                    write(copy, Long.parseLong(csv.get(0)), csv.get(1), csv.get(2), csv.get(3), csv.get(4));
+                    kept++;
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return kept;
+    }
+
+    private static void write(BufferedWriter out, long line, String stage, String column, String reason, String title) throws IOException {
+        out.write(line + "," + stage + "," + quote(column) + "," + quote(reason) + "," + quote(title));
+        out.newLine();
+    }
+
+    private static String quote(String text) {
+        if (text == null || text.isEmpty()) return "";
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
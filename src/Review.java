@@ -0,0 +1,9 @@
+import java.sql.Timestamp;
+
+/**
+ * A review as shown in MovieDetailsDialog, including the like state for the viewing user.
+ * (likeCount, createdAt, reviewId) is the review list's keyset.
+ */
+public record Review(int reviewId, int userId, String username, double rating, String reviewText,
+                     int likeCount, boolean likedByViewer, Timestamp createdAt) {
+}
@@ -0,0 +1,220 @@
+import javax.swing.AbstractListModel;
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * List model behind the review list in MovieDetailsDialog.
+ *
+ * Works like MediaTableModel's catalog mode: reviews are fetched in pages of PAGE_SIZE as the
+ * list asks for them, using keyset pagination on (like_count, created_at, review_id), and only
+ * the MAX_CACHED_PAGES most recently used pages are kept. The size comes from
+ * Movies.review_count, so the scrollbar is right from the start; a row whose page hasn't
+ * arrived yet is null until it does.
+ *
+ * While there is nothing to list (loading, no reviews, an error) the model has a single
+ * null row and getMessage() says why. A page that fails to load is retried with the same backoff
+ * as MediaTableModel's; once it gives up, failedToLoad is true for its rows.
+ */
+public class ReviewListModel extends AbstractListModel<Review> {
+
+    static final int PAGE_SIZE = 50;
+    static final int MAX_CACHED_PAGES = 10;
+
+    private final int movieId;
+    private final int viewerId;
+    private final Consumer<Throwable> errorHandler;
+
+    private final Map<Integer, List<Review>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Review>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // pageAnchors.get(p) is the last review of page p-1, i.e. where the keyset query for page p starts.
+    private final Map<Integer, Review> pageAnchors = new HashMap<>();
+    private final Set<Integer> pendingPages = new HashSet<>();
+    private final Map<Integer, Integer> pageFailures = new HashMap<>();  // failed attempts since the page last loaded
+    private int size;
+    private String message;
+    private int generation;  // bumped on every reload so late pages from before it are dropped
+
+    public ReviewListModel(int movieId, int viewerId, Consumer<Throwable> errorHandler) {
+        this.movieId = movieId;
+        this.viewerId = viewerId;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Drops everything loaded and starts over from the first page. The count and the first page
+     * are queried at the same time; the returned future completes once both are in.
+     */
+    public CompletableFuture<Void> reload() {
+        generation++;
+        pages.clear();
+        pageAnchors.clear();
+        pendingPages.clear();
+        pageFailures.clear();
+        showMessage("Loading reviews...");
+        int expectedGeneration = generation;
+        CompletableFuture<Void> firstPage = requestPage(0);
+        CompletableFuture<Integer> size = DataAccess.supply(() -> ReviewRepository.countByMovie(movieId)).whenCompleteAsync((count, error) -> {
+            if (expectedGeneration != generation) return;
+            if (error != null) {
+                showMessage("Error loading reviews.");
+                errorHandler.accept(error);
+                return;
+            }
+            // If the first page got here first and is short, it is the exact count.
+            List<Review> first = pages.get(0);
+            int rows = first != null && first.size() < PAGE_SIZE ? first.size() : count;
+            if (rows == 0) {
+                showMessage("No reviews yet. Be the first to write one!");
+                return;
+            }
+            message = null;
+            fireIntervalRemoved(this, 0, 0); // the message row
+            resizeTo(rows);
+        }, DataAccess.EDT);
+        return CompletableFuture.allOf(firstPage, size);
+    }
+
+    /** Why the list is empty, or null while it shows reviews. */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public int getSize() {
+        return message != null ? 1 : size;
+    }
+
+    /** The review at index, or null if its page is still loading (the page is requested). */
+    @Override
+    public Review getElementAt(int index) {
+        if (message != null) return null;
+        List<Review> page = pages.get(index / PAGE_SIZE);
+        if (page == null) {
+            requestPage(index / PAGE_SIZE);
+            return null;
+        }
+        int offset = index % PAGE_SIZE;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    /** True if the row at index is null because its page could not be loaded, rather than still loading. */
+    public boolean failedToLoad(int index) {
+        return message == null && pageFailures.getOrDefault(index / PAGE_SIZE, 0) > MediaTableModel.MAX_PAGE_RETRIES;
+    }
+
+    /** Swaps in a changed copy of a loaded review (same review_id), e.g. after a like, without reloading. */
+    public void replace(Review updated) {
+        for (Map.Entry<Integer, List<Review>> page : pages.entrySet()) {
+            List<Review> reviews = page.getValue();
+            for (int i = 0; i < reviews.size(); i++) {
+                if (reviews.get(i).reviewId() == updated.reviewId()) {
+                    reviews.set(i, updated);
+                    int index = page.getKey() * PAGE_SIZE + i;
+                    fireContentsChanged(this, index, index);
+                    return;
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> requestPage(int pageIndex) {
+        if (pendingPages.contains(pageIndex)) return CompletableFuture.completedFuture(null);
+        pendingPages.add(pageIndex);
+
+        Review anchor = pageAnchors.get(pageIndex);
+        int expectedGeneration = generation;
+        return DataAccess.supply(() -> {
+            if (pageIndex == 0 || anchor != null) {
+                return ReviewRepository.findPageByMovie(movieId, viewerId, anchor, PAGE_SIZE);
+            }
+            // Jumped past the pages we have anchors for (e.g. dragged the scrollbar): fall back to an offset.
+            return ReviewRepository.findPageByMovieAt(movieId, viewerId, pageIndex * PAGE_SIZE, PAGE_SIZE);
+        }).whenCompleteAsync((reviews, error) -> {
+            if (expectedGeneration != generation) return;
+            if (error != null) {
+                pageFailed(pageIndex, error);
+                return;
+            }
+            pendingPages.remove(pageIndex);
+            pageFailures.remove(pageIndex);
+            pageLoaded(pageIndex, reviews);
+        }, DataAccess.EDT).thenApply(reviews -> null);
+    }
+
+    // The page stays pending while it waits, so painting its rows doesn't retry it in a loop.
+    private void pageFailed(int pageIndex, Throwable error) {
+        int failures = pageFailures.merge(pageIndex, 1, Integer::sum);
+        if (failures > MediaTableModel.MAX_PAGE_RETRIES) {
+            firePageChanged(pageIndex);
+            errorHandler.accept(error);
+            return;
+        }
+        int expectedGeneration = generation;
+        Timer retry = new Timer(MediaTableModel.RETRY_DELAY_MS << (failures - 1), e -> {
+            if (expectedGeneration != generation) return;
+            pendingPages.remove(pageIndex);
+            firePageChanged(pageIndex); // repaints the rows, which asks for the page again if they are in view
+        });
+        retry.setRepeats(false);
+        retry.start();
+    }
+
+    private void firePageChanged(int pageIndex) {
+        int first = pageIndex * PAGE_SIZE;
+        int last = Math.min(size, first + PAGE_SIZE) - 1;
+        if (last >= first && message == null) {
+            fireContentsChanged(this, first, last);
+        }
+    }
+
+    private void pageLoaded(int pageIndex, List<Review> reviews) {
+        pages.put(pageIndex, new ArrayList<>(reviews));
+        int first = pageIndex * PAGE_SIZE;
+        if (!reviews.isEmpty()) {
+            pageAnchors.put(pageIndex + 1, reviews.get(reviews.size() - 1));
+        }
+        if (message != null) {
+            return; // the first page arrived before the count; reload() sizes the list from both
+        }
+        if (reviews.size() < PAGE_SIZE && first + reviews.size() != size) {
+            // A short page marks the true end; review_count can be briefly off while others post or delete.
+            resizeTo(first + reviews.size());
+            if (size == 0) showMessage("No reviews yet. Be the first to write one!");
+        }
+        firePageChanged(pageIndex);
+    }
+
+    private void showMessage(String text) {
+        int oldSize = getSize();
+        message = text;
+        size = 0;
+        if (oldSize == 0) {
+            fireIntervalAdded(this, 0, 0);
+            return;
+        }
+        if (oldSize > 1) fireIntervalRemoved(this, 1, oldSize - 1);
+        fireContentsChanged(this, 0, 0);
+    }
+
+    private void resizeTo(int newSize) {
+        int oldSize = size;
+        size = newSize;
+        if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        } else if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        }
+    }
+}
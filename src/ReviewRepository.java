@@ -0,0 +1,308 @@
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * All SQL against Reviews and Review_Likes.
+ *
+ * Every review write also adjusts Movies.review_count / Movies.rating_sum in the same
+ * transaction, so listings can show the average without aggregating Reviews. Likewise every
+ * like or unlike adjusts Reviews.like_count. RatingAggregateRepair recomputes both in bulk
+ * if they ever drift. After a review write commits, MovieDetailsCache is told the title's
+ * rating changed.
+ */
+public final class ReviewRepository {
+
+    // A title's reviews are paged most liked first, keyset-paginated on (like_count, created_at, review_id), all descending.
+    // Read straight off idx_reviews_movie_likes (movie_id, like_count, created_at, review_id).
+    private static final String MOVIE_REVIEWS =
+            "SELECT r.review_id, u.username, r.rating, r.review_text, r.user_id, r.created_at, r.like_count, " +
+            "(SELECT COUNT(*) FROM Review_Likes rl WHERE rl.review_id = r.review_id AND rl.user_id = ?) as user_liked " +
+            "FROM Reviews r JOIN Users u ON r.user_id = u.user_id WHERE r.movie_id = ? ";
+    private static final String MOVIE_REVIEWS_ORDER = " ORDER BY r.like_count DESC, r.created_at DESC, r.review_id DESC";
+
+    // Package-private: QueryPlanCheck runs the read queries through EXPLAIN PLAN.
+    static final String FIND_FIRST_PAGE_BY_MOVIE_SQL =
+            MOVIE_REVIEWS + MOVIE_REVIEWS_ORDER + " FETCH FIRST ? ROWS ONLY";
+    static final String FIND_NEXT_PAGE_BY_MOVIE_SQL =
+            MOVIE_REVIEWS + "AND (r.like_count < ? OR (r.like_count = ? AND (r.created_at < ? OR (r.created_at = ? AND r.review_id < ?))))" +
+            MOVIE_REVIEWS_ORDER + " FETCH FIRST ? ROWS ONLY";
+    static final String FIND_PAGE_AT_BY_MOVIE_SQL =
+            MOVIE_REVIEWS + MOVIE_REVIEWS_ORDER + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    // Movies.review_count is maintained by every review write, so counting needs no scan of Reviews.
+    static final String COUNT_BY_MOVIE_SQL =
+            "SELECT review_count FROM Movies WHERE movie_id = ?";
+    static final String FIND_BY_USER_SQL =
+            "SELECT m.title, r.rating, r.review_text FROM Reviews r JOIN Movies m ON r.movie_id = m.movie_id WHERE r.user_id = ? ORDER BY r.created_at DESC";
+    static final String HAS_REVIEWED_SQL =
+            "SELECT 1 FROM Reviews WHERE user_id = ? AND movie_id = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO Reviews (review_id, rating, review_text, user_id, movie_id) VALUES (review_id_seq.NEXTVAL, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE Reviews SET rating = ?, review_text = ? WHERE review_id = ?";
+    private static final String DELETE_SQL =
+            "DELETE FROM Reviews WHERE review_id = ?";
+    static final String LOCK_REVIEW_SQL =
+            "SELECT movie_id, rating FROM Reviews WHERE review_id = ? FOR UPDATE";
+    private static final String ADJUST_AGGREGATES_SQL =
+            "UPDATE Movies SET review_count = review_count + ?, rating_sum = rating_sum + ? WHERE movie_id = ?";
+    // The like row and the review's like_count change in one PL/SQL call: one round trip, one atomic statement.
+    // Liking twice or unliking a review that isn't liked changes nothing; either way the current count comes back.
+    private static final String SET_LIKED_SQL =
+            "DECLARE " +
+            "  v_review NUMBER := ?; v_user NUMBER := ?; v_liked NUMBER := ?; v_count NUMBER; " +
+            "BEGIN " +
+            "  IF v_liked = 1 THEN " +
+            "    BEGIN " +
+            "      INSERT INTO Review_Likes (like_id, review_id, user_id) VALUES (like_id_seq.NEXTVAL, v_review, v_user); " +
+            "      UPDATE Reviews SET like_count = like_count + 1 WHERE review_id = v_review RETURNING like_count INTO v_count; " +
+            "    EXCEPTION WHEN DUP_VAL_ON_INDEX THEN NULL; " +
+            "    END; " +
+            "  ELSE " +
+            "    DELETE FROM Review_Likes WHERE review_id = v_review AND user_id = v_user; " +
+            "    IF SQL%ROWCOUNT > 0 THEN " +
+            "      UPDATE Reviews SET like_count = like_count - 1 WHERE review_id = v_review RETURNING like_count INTO v_count; " +
+            "    END IF; " +
+            "  END IF; " +
+            "  IF v_count IS NULL THEN " +
+            "    SELECT like_count INTO v_count FROM Reviews WHERE review_id = v_review; " +
+            "  END IF; " +
+            "  ? := v_count; " +
+            "END;";
+    // Batched like writes (LikeWriteQueue). Both are no-ops when the row is already in the wanted state.
+    static final String MERGE_LIKE_SQL =
+            "MERGE INTO Review_Likes rl USING (SELECT ? as review_id, ? as user_id FROM dual) s " +
+            "ON (rl.review_id = s.review_id AND rl.user_id = s.user_id) " +
+            "WHEN NOT MATCHED THEN INSERT (like_id, review_id, user_id) VALUES (like_id_seq.NEXTVAL, s.review_id, s.user_id)";
+    static final String UNLIKE_SQL =
+            "DELETE FROM Review_Likes WHERE review_id = ? AND user_id = ?";
+    // Recounting (from idx_review_likes_review) instead of adding deltas keeps the batch idempotent.
+    static final String RECOUNT_LIKES_SQL =
+            "UPDATE Reviews r SET like_count = (SELECT COUNT(*) FROM Review_Likes rl WHERE rl.review_id = r.review_id) WHERE r.review_id = ?";
+    private static final String REPAIR_LIKE_COUNTS_SQL =
+            "MERGE INTO Reviews r USING (" +
+            "  SELECT rv.review_id, COUNT(rl.like_id) as like_count " +
+            "  FROM Reviews rv LEFT JOIN Review_Likes rl ON rl.review_id = rv.review_id GROUP BY rv.review_id) agg " +
+            "ON (r.review_id = agg.review_id) " +
+            "WHEN MATCHED THEN UPDATE SET r.like_count = agg.like_count WHERE r.like_count <> agg.like_count";
+
+    private ReviewRepository() {
+    }
+
+    /**
+     * One page of a title's reviews, most liked first, with the like state of viewerId.
+     * Starts right after anchor (null = first page).
+     */
+    public static List<Review> findPageByMovie(int movieId, int viewerId, Review anchor, int pageSize) throws SQLException {
+        String sql = anchor == null ? FIND_FIRST_PAGE_BY_MOVIE_SQL : FIND_NEXT_PAGE_BY_MOVIE_SQL;
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            pstmt.setInt(index++, viewerId);
+            pstmt.setInt(index++, movieId);
+            if (anchor != null) {
+                pstmt.setInt(index++, anchor.likeCount());
+                pstmt.setInt(index++, anchor.likeCount());
+                pstmt.setTimestamp(index++, anchor.createdAt());
+                pstmt.setTimestamp(index++, anchor.createdAt());
+                pstmt.setInt(index++, anchor.reviewId());
+            }
+            pstmt.setInt(index, pageSize);
+            return readReviews(pstmt.executeQuery());
+        }
+    }
+
+    /** One page of a title's reviews by offset, for jumps past the pages there are keyset anchors for. */
+    public static List<Review> findPageByMovieAt(int movieId, int viewerId, int offset, int pageSize) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_PAGE_AT_BY_MOVIE_SQL)) {
+            pstmt.setInt(1, viewerId);
+            pstmt.setInt(2, movieId);
+            pstmt.setInt(3, offset);
+            pstmt.setInt(4, pageSize);
+            return readReviews(pstmt.executeQuery());
+        }
+    }
+
+    public static int countByMovie(int movieId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(COUNT_BY_MOVIE_SQL)) {
+            pstmt.setInt(1, movieId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static List<Review> readReviews(ResultSet rs) throws SQLException {
+        List<Review> reviews = new ArrayList<>();
+        while (rs.next()) {
+            reviews.add(new Review(rs.getInt("review_id"), rs.getInt("user_id"), rs.getString("username"),
+                    rs.getDouble("rating"), rs.getString("review_text"),
+                    rs.getInt("like_count"), rs.getInt("user_liked") > 0, rs.getTimestamp("created_at")));
+        }
+        return reviews;
+    }
+
+    /** Reviews written by a user, newest first. */
+    public static List<UserReview> findByUser(int userId) throws SQLException {
+        List<UserReview> reviews = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_BY_USER_SQL)) {
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                reviews.add(new UserReview(rs.getString("title"), rs.getDouble("rating"), rs.getString("review_text")));
+            }
+        }
+        return reviews;
+    }
+
+    public static boolean hasReviewed(int userId, int movieId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(HAS_REVIEWED_SQL)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, movieId);
+            return pstmt.executeQuery().next();
+        }
+    }
+
+    public static void insert(int movieId, int userId, double rating, String reviewText) throws SQLException {
+        DatabaseConnector.inTransaction(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                pstmt.setDouble(1, rating);
+                pstmt.setString(2, reviewText);
+                pstmt.setInt(3, userId);
+                pstmt.setInt(4, movieId);
+                pstmt.executeUpdate();
+            }
+            adjustAggregates(conn, movieId, 1, rating);
+            return null;
+        });
+        MovieDetailsCache.ratingChanged(movieId);
+    }
+
+    public static void update(int reviewId, double rating, String reviewText) throws SQLException {
+        Integer movieId = DatabaseConnector.inTransaction(conn -> {
+            LockedReview old = lockReview(conn, reviewId);
+            if (old == null) {
+                return null; // deleted meanwhile; nothing to update
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+                pstmt.setDouble(1, rating);
+                pstmt.setString(2, reviewText);
+                pstmt.setInt(3, reviewId);
+                pstmt.executeUpdate();
+            }
+            adjustAggregates(conn, old.movieId(), 0, rating - old.rating());
+            return old.movieId();
+        });
+        if (movieId != null) MovieDetailsCache.ratingChanged(movieId);
+    }
+
+    /** Deletes a review; returns false if it no longer existed. */
+    public static boolean delete(int reviewId) throws SQLException {
+        Integer movieId = DatabaseConnector.inTransaction(conn -> {
+            LockedReview old = lockReview(conn, reviewId);
+            if (old == null) {
+                return null;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(DELETE_SQL)) {
+                pstmt.setInt(1, reviewId);
+                pstmt.executeUpdate();
+            }
+            adjustAggregates(conn, old.movieId(), -1, -old.rating());
+            return old.movieId();
+        });
+        if (movieId == null) return false;
+        MovieDetailsCache.ratingChanged(movieId);
+        return true;
+    }
+
+    private record LockedReview(int movieId, double rating) {
+    }
+
+    // Row-locks the review so a concurrent edit/delete can't apply the same old rating twice.
+    private static LockedReview lockReview(Connection conn, int reviewId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(LOCK_REVIEW_SQL)) {
+            pstmt.setInt(1, reviewId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? new LockedReview(rs.getInt("movie_id"), rs.getDouble("rating")) : null;
+        }
+    }
+
+    private static void adjustAggregates(Connection conn, int movieId, int countDelta, double ratingDelta) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(ADJUST_AGGREGATES_SQL)) {
+            pstmt.setInt(1, countDelta);
+            pstmt.setDouble(2, ratingDelta);
+            pstmt.setInt(3, movieId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Likes or unlikes a review and returns its like count afterwards, in one round trip.
+     * Fails (e.g. ORA-02291 / ORA-01403) if the review no longer exists.
+     */
+    public static int setLiked(int reviewId, int userId, boolean liked) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); CallableStatement cstmt = conn.prepareCall(SET_LIKED_SQL)) {
+            cstmt.setInt(1, reviewId);
+            cstmt.setInt(2, userId);
+            cstmt.setInt(3, liked ? 1 : 0);
+            cstmt.registerOutParameter(4, Types.INTEGER);
+            cstmt.execute();
+            return cstmt.getInt(4);
+        }
+    }
+
+    /** One coalesced like state for LikeWriteQueue. */
+    public record LikeChange(int reviewId, int userId, boolean liked) {
+    }
+
+    /**
+     * Applies many like changes in one transaction: likes and unlikes go out as JDBC batches of
+     * up to batchSize, then like_count is recounted once per affected review.
+     */
+    public static void applyLikeChanges(List<LikeChange> changes, int batchSize) throws SQLException {
+        DatabaseConnector.inTransaction(conn -> {
+            Set<Integer> reviewIds = new TreeSet<>();  // ascending, so concurrent flushes lock Reviews rows in the same order
+            try (PreparedStatement like = conn.prepareStatement(MERGE_LIKE_SQL);
+                 PreparedStatement unlike = conn.prepareStatement(UNLIKE_SQL)) {
+                int likes = 0;
+                int unlikes = 0;
+                for (LikeChange change : changes) {
+                    PreparedStatement pstmt = change.liked() ? like : unlike;
+                    pstmt.setInt(1, change.reviewId());
+                    pstmt.setInt(2, change.userId());
+                    pstmt.addBatch();
+                    reviewIds.add(change.reviewId());
+                    if (change.liked() ? ++likes % batchSize == 0 : ++unlikes % batchSize == 0) {
+                        pstmt.executeBatch();
+                    }
+                }
+                if (likes % batchSize != 0) like.executeBatch();
+                if (unlikes % batchSize != 0) unlike.executeBatch();
+            }
+            try (PreparedStatement recount = conn.prepareStatement(RECOUNT_LIKES_SQL)) {
+                int count = 0;
+                for (int reviewId : reviewIds) {
+                    recount.setInt(1, reviewId);
+                    recount.addBatch();
+                    if (++count % batchSize == 0) recount.executeBatch();
+                }
+                if (count % batchSize != 0) recount.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /** Recomputes Reviews.like_count from Review_Likes; returns how many reviews had drifted. */
+    public static int repairLikeCounts() throws SQLException {
+        return DatabaseConnector.inTransaction(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(REPAIR_LIKE_COUNTS_SQL)) {
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+}
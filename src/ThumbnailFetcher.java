@@ -0,0 +1,145 @@
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads poster thumbnails for table rows through PosterCache with a fixed number of worker
+ * threads, so scrolling through thousands of rows never starts more than that many downloads.
+ *
+ * Requests are keyed by URL and remember the row that asked. Workers always take the queued
+ * request closest to the visible rows next, and whenever the viewport moves, requests for rows
+ * that have scrolled more than MARGIN_ROWS away are dropped before they start. Downloads
+ * already running are left to finish: their result still lands in the cache.
+ *
+ * request(), setViewport() and cancelAll() are called on the EDT, and onLoaded runs there too;
+ * callers find the image with PosterCache.getIfCached rather than being handed it, so a
+ * result is never tied to a row that has since been reloaded.
+ */
+public final class ThumbnailFetcher {
+
+    /** Rows beyond the visible range that are still worth fetching (the prefetch window). */
+    static final int MARGIN_ROWS = 20;
+    private static final int MAX_QUEUED = 200;
+
+    private final PosterCache cache;
+    private final int width;
+    private final int height;
+    private final Runnable onLoaded;
+
+    // Guarded by this. url -> row that asked for it, in request order.
+    private final Map<String, Integer> queued = new LinkedHashMap<>();
+    private final Set<String> running = new HashSet<>();
+    private int firstVisibleRow;
+    private int lastVisibleRow = -1;
+    private boolean shutdown;
+
+    /**
+     * onLoaded runs on the EDT after each request finishes: the image is then in the cache,
+     * or the URL is a known failure (see PosterCache.isKnownFailure).
+     */
+    public ThumbnailFetcher(PosterCache cache, int width, int height, int workers, Runnable onLoaded) {
+        this.cache = cache;
+        this.width = width;
+        this.height = height;
+        this.onLoaded = onLoaded;
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::work, "thumbnail-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /** Asks for url's thumbnail on behalf of row. Ignored if it is already queued or loading. */
+    public synchronized void request(String url, int row) {
+        if (shutdown || running.contains(url)) return;
+        queued.put(url, row);  // a repeated request just moves the row
+        if (queued.size() > MAX_QUEUED) {
+            queued.remove(farthestQueued());
+        }
+        notify();
+    }
+
+    /** The rows now on screen; drops queued requests outside them plus MARGIN_ROWS. */
+    public synchronized void setViewport(int firstRow, int lastRow) {
+        firstVisibleRow = firstRow;
+        lastVisibleRow = lastRow;
+        queued.values().removeIf(row -> distance(row) > MARGIN_ROWS);
+    }
+
+    /** Forgets every queued request, e.g. when the table is reloaded and rows mean something else. */
+    public synchronized void cancelAll() {
+        queued.clear();
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        queued.clear();
+        notifyAll();
+    }
+
+    private void work() {
+        while (true) {
+            String url;
+            synchronized (this) {
+                while (queued.isEmpty() && !shutdown) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (shutdown) return;
+                url = nearestQueued();
+                queued.remove(url);
+                running.add(url);
+            }
+            try {
+                cache.load(url, width, height);  // null means no usable image; the cache remembers that too
+            } catch (IOException | RuntimeException e) {
+                // PosterCache remembers the failure; the row shows the "no poster" placeholder.
+            } finally {
+                synchronized (this) {
+                    running.remove(url);
+                }
+            }
+            SwingUtilities.invokeLater(onLoaded);
+        }
+    }
+
+    // Both scans are over at most MAX_QUEUED entries.
+    private String nearestQueued() {
+        String best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Map.Entry<String, Integer> entry : queued.entrySet()) {
+            int d = distance(entry.getValue());
+            if (d < bestDistance) {
+                best = entry.getKey();
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    private String farthestQueued() {
+        String worst = null;
+        int worstDistance = -1;
+        for (Map.Entry<String, Integer> entry : queued.entrySet()) {
+            int d = distance(entry.getValue());
+            if (d > worstDistance) {
+                worst = entry.getKey();
+                worstDistance = d;
+            }
+        }
+        return worst;
+    }
+
+    // 0 for visible rows, otherwise how many rows away from the visible range.
+    private int distance(int row) {
+        if (row < firstVisibleRow) return firstVisibleRow - row;
+        if (row > lastVisibleRow) return row - lastVisibleRow;
+        return 0;
+    }
+}
@@ -0,0 +1,393 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory substring index over every title, one shard per media_type, used for
+ * search-as-you-type instead of UPPER(title) LIKE '%term%' in Oracle.
+ *
+ * Each shard keeps its titles in catalog order (title, movie_id) and maps every trigram of
+ * the upper-cased title to a posting list of title ordinals. All posting lists live in one
+ * int[] (CSR layout: offsets + postings), and trigrams are packed into longs in an
+ * open-addressing table, so a 30k-title catalog costs a few hundred KB and no boxing.
+ * A search intersects the posting lists of the term's trigrams (shortest first), then
+ * verifies the survivors with a plain contains(), so results are exact and already sorted.
+ *
+ * The index is built once per JVM from one streaming query. Titles added by this app
+ * afterwards go into a small per-shard overflow list via {@link #recordAdded}.
+ */
+public final class TitleIndex {
+
+    private static final String LOAD_SQL =
+            "SELECT movie_id, media_type, title, genres FROM Movies ORDER BY media_type, title, movie_id";
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    private static volatile Map<String, Shard> shards;  // null until load() has finished
+
+    private TitleIndex() {
+    }
+
+    public static boolean isReady() {
+        return shards != null;
+    }
+
+    /** Builds the index if it hasn't been built yet in this JVM. Call off the EDT. */
+    public static synchronized void load() throws SQLException {
+        if (shards != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, Shard> loaded = new HashMap<>();
+        int titleCount = 0;
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(LOAD_SQL)) {
+            pstmt.setFetchSize(LOAD_FETCH_SIZE);
+            ResultSet rs = pstmt.executeQuery();
+            ShardBuilder builder = null;
+            while (rs.next()) {
+                String mediaType = rs.getString("media_type");
+                if (builder == null || !builder.mediaType.equals(mediaType)) {
+                    if (builder != null) loaded.put(builder.mediaType, builder.build());
+                    builder = new ShardBuilder(mediaType);
+                }
+                builder.add(rs.getInt("movie_id"), rs.getString("title"), rs.getString("genres"));
+                titleCount++;
+            }
+            if (builder != null) loaded.put(builder.mediaType, builder.build());
+        }
+        shards = loaded;
+        System.out.printf("Title index: %d titles in %d ms%n", titleCount, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Movie ids whose title contains term (case-insensitive), optionally restricted to one
+     * genre, in catalog order. Returns null while the index is still loading.
+     */
+    public static int[] search(String mediaType, String genre, String term) {
+        Map<String, Shard> current = shards;
+        if (current == null) {
+            return null;
+        }
+        Shard shard = current.get(mediaType);
+        return shard == null ? new int[0] : shard.search(genre, fold(term));
+    }
+
+    /** Adds a title inserted by this application so it is searchable without a rebuild. */
+    public static void recordAdded(int movieId, String mediaType, String title, String genres) {
+        Map<String, Shard> current = shards;
+        if (current == null) {
+            return; // not built yet; the load query will pick the title up
+        }
+        synchronized (TitleIndex.class) {
+            Shard shard = shards.get(mediaType);
+            if (shard == null) {
+                Map<String, Shard> copy = new HashMap<>(shards);
+                shard = new ShardBuilder(mediaType).build();
+                copy.put(mediaType, shard);
+                shards = copy;
+            }
+            shard.addOverflow(new AddedTitle(movieId, title, fold(title), GenreRepository.splitGenres(genres)));
+        }
+    }
+
+    private static String fold(String text) {
+        return text.toUpperCase(Locale.ROOT);
+    }
+
+    // Three UTF-16 chars packed into one long; bit 48 keeps every key non-zero (0 marks an empty slot).
+    private static long trigram(String s, int i) {
+        return (1L << 48) | ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static long[] distinctTrigrams(String folded) {
+        if (folded.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[folded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = trigram(folded, i);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) grams[distinct++] = grams[i];
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private record AddedTitle(int movieId, String title, String folded, Set<String> genres) {
+    }
+
+    private static final class Shard {
+        private final int[] movieIds;
+        private final String[] titles;
+        private final String[] folded;
+        // Genres of title i are genreOrdinals[genreStart[i] .. genreStart[i + 1]).
+        private final int[] genreStart;
+        private final int[] genreOrdinals;
+        private final Map<String, Integer> genreOrdinal;
+        private final TrigramTable trigrams;
+        // Posting list of trigram slot s is postings[postingStart[s] .. postingStart[s + 1]), ascending.
+        private final int[] postingStart;
+        private final int[] postings;
+        private volatile AddedTitle[] overflow = new AddedTitle[0];
+
+        Shard(int[] movieIds, String[] titles, String[] folded, int[] genreStart, int[] genreOrdinals,
+              Map<String, Integer> genreOrdinal, TrigramTable trigrams, int[] postingStart, int[] postings) {
+            this.movieIds = movieIds;
+            this.titles = titles;
+            this.folded = folded;
+            this.genreStart = genreStart;
+            this.genreOrdinals = genreOrdinals;
+            this.genreOrdinal = genreOrdinal;
+            this.trigrams = trigrams;
+            this.postingStart = postingStart;
+            this.postings = postings;
+        }
+
+        void addOverflow(AddedTitle added) {
+            for (int movieId : movieIds) {
+                if (movieId == added.movieId()) return;
+            }
+            AddedTitle[] current = overflow;
+            for (AddedTitle existing : current) {
+                if (existing.movieId() == added.movieId()) return;
+            }
+            AddedTitle[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = added;
+            Arrays.sort(grown, (a, b) -> {
+                int byTitle = a.title().compareTo(b.title());
+                return byTitle != 0 ? byTitle : Integer.compare(a.movieId(), b.movieId());
+            });
+            overflow = grown;
+        }
+
+        int[] search(String genre, String term) {
+            int genreFilter = -1;
+            if (genre != null) {
+                Integer ordinal = genreOrdinal.get(genre);
+                genreFilter = ordinal == null ? -2 : ordinal; // -2: genre only exists in the overflow, if at all
+            }
+
+            int[] matches = candidates(term);
+            int count = 0;
+            for (int ordinal : matches) {
+                if (folded[ordinal].contains(term) && hasGenre(ordinal, genreFilter)) {
+                    matches[count++] = ordinal;
+                }
+            }
+            return mergeOverflow(matches, count, genre, term);
+        }
+
+        // Title ordinals that contain every trigram of term, ascending (a superset of the real matches).
+        private int[] candidates(String term) {
+            long[] grams = distinctTrigrams(term);
+            if (grams.length == 0) {
+                // Too short for a trigram: a straight scan over the folded titles is still well under a millisecond.
+                int[] all = new int[titles.length];
+                for (int i = 0; i < all.length; i++) all[i] = i;
+                return all;
+            }
+            int[] slots = new int[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                slots[i] = trigrams.get(grams[i]);
+                if (slots[i] < 0) return new int[0];
+            }
+            // Intersect shortest lists first so the working set shrinks as fast as possible.
+            // (A term has only a handful of trigrams, so an insertion sort is plenty.)
+            int[] order = slots;
+            for (int i = 1; i < order.length; i++) {
+                int slot = order[i];
+                int j = i - 1;
+                while (j >= 0 && postingLength(order[j]) > postingLength(slot)) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = slot;
+            }
+
+            int first = order[0];
+            int[] result = Arrays.copyOfRange(postings, postingStart[first], postingStart[first + 1]);
+            int size = result.length;
+            for (int k = 1; k < order.length && size > 0; k++) {
+                size = intersect(result, size, postingStart[order[k]], postingStart[order[k] + 1]);
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        private int postingLength(int slot) {
+            return postingStart[slot + 1] - postingStart[slot];
+        }
+
+        // Keeps the entries of result[0..size) that also occur in postings[from..to); both are ascending.
+        private int intersect(int[] result, int size, int from, int to) {
+            int kept = 0;
+            int p = from;
+            for (int i = 0; i < size && p < to; i++) {
+                int value = result[i];
+                while (p < to && postings[p] < value) p++;
+                if (p < to && postings[p] == value) result[kept++] = value;
+            }
+            return kept;
+        }
+
+        private boolean hasGenre(int ordinal, int genreFilter) {
+            if (genreFilter == -1) return true;
+            for (int g = genreStart[ordinal]; g < genreStart[ordinal + 1]; g++) {
+                if (genreOrdinals[g] == genreFilter) return true;
+            }
+            return false;
+        }
+
+        // Merges matching overflow titles into the (already ordered) index matches by (title, movie_id).
+        private int[] mergeOverflow(int[] matches, int count, String genre, String term) {
+            List<AddedTitle> extra = new ArrayList<>();
+            for (AddedTitle added : overflow) {
+                if (added.folded().contains(term) && (genre == null || added.genres().contains(genre))) {
+                    extra.add(added);
+                }
+            }
+            int[] ids = new int[count + extra.size()];
+            int i = 0, e = 0, out = 0;
+            while (i < count || e < extra.size()) {
+                boolean takeIndexed = e == extra.size()
+                        || (i < count && compare(matches[i], extra.get(e)) < 0);
+                ids[out++] = takeIndexed ? movieIds[matches[i++]] : extra.get(e++).movieId();
+            }
+            return ids;
+        }
+
+        private int compare(int ordinal, AddedTitle added) {
+            int byTitle = titles[ordinal].compareTo(added.title());
+            return byTitle != 0 ? byTitle : Integer.compare(movieIds[ordinal], added.movieId());
+        }
+    }
+
+    private static final class ShardBuilder {
+        final String mediaType;
+        private int[] movieIds = new int[1024];
+        private final List<String> titles = new ArrayList<>();
+        private final List<String> folded = new ArrayList<>();
+        private int[] genreStart = new int[1025];
+        private int[] genreOrdinals = new int[2048];
+        private final Map<String, Integer> genreOrdinal = new HashMap<>();
+        private int size;
+        private int genreCount;
+
+        ShardBuilder(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        void add(int movieId, String title, String genres) {
+            if (size == movieIds.length) {
+                movieIds = Arrays.copyOf(movieIds, size * 2);
+                genreStart = Arrays.copyOf(genreStart, size * 2 + 1);
+            }
+            movieIds[size] = movieId;
+            titles.add(title);
+            folded.add(fold(title));
+            for (String name : GenreRepository.splitGenres(genres)) {
+                if (genreCount == genreOrdinals.length) genreOrdinals = Arrays.copyOf(genreOrdinals, genreCount * 2);
+                genreOrdinals[genreCount++] = genreOrdinal.computeIfAbsent(name, n -> genreOrdinal.size());
+            }
+            size++;
+            genreStart[size] = genreCount;
+        }
+
+        Shard build() {
+            String[] foldedTitles = folded.toArray(new String[0]);
+
+            // Pass 1: count titles per trigram.
+            TrigramTable table = new TrigramTable(Math.max(16, size * 4));
+            int[] counts = new int[64];
+            for (String title : foldedTitles) {
+                for (long gram : distinctTrigrams(title)) {
+                    int slot = table.getOrAdd(gram);
+                    if (slot == counts.length) counts = Arrays.copyOf(counts, slot * 2);
+                    counts[slot]++;
+                }
+            }
+            int slotCount = table.size();
+            int[] postingStart = new int[slotCount + 1];
+            for (int s = 0; s < slotCount; s++) {
+                postingStart[s + 1] = postingStart[s] + counts[s];
+            }
+
+            // Pass 2: fill each list in title order, so every posting list comes out ascending.
+            int[] postings = new int[postingStart[slotCount]];
+            int[] fill = Arrays.copyOf(postingStart, slotCount);
+            for (int ordinal = 0; ordinal < foldedTitles.length; ordinal++) {
+                for (long gram : distinctTrigrams(foldedTitles[ordinal])) {
+                    postings[fill[table.get(gram)]++] = ordinal;
+                }
+            }
+            return new Shard(Arrays.copyOf(movieIds, size), titles.toArray(new String[0]), foldedTitles,
+                    Arrays.copyOf(genreStart, size + 1), Arrays.copyOf(genreOrdinals, genreCount),
+                    genreOrdinal, table, postingStart, postings);
+        }
+    }
+
+    /** Open-addressing long -> dense slot number map (slots are assigned 0, 1, 2, ... in insertion order). */
+    private static final class TrigramTable {
+        private long[] keys;
+        private int[] slots;
+        private int mask;
+        private int size;
+
+        TrigramTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            keys = new long[capacity];
+            slots = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(long key) {
+            for (int i = index(key); ; i = (i + 1) & mask) {
+                if (keys[i] == key) return slots[i];
+                if (keys[i] == 0) return -1;
+            }
+        }
+
+        int getOrAdd(long key) {
+            if (size * 2 >= keys.length) grow();
+            int i = index(key);
+            for (; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) return slots[i];
+            }
+            keys[i] = key;
+            slots[i] = size;
+            return size++;
+        }
+
+        private int index(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldSlots = slots;
+            keys = new long[oldKeys.length * 2];
+            slots = new int[oldKeys.length * 2];
+            mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == 0) continue;
+                int i = index(oldKeys[j]);
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                slots[i] = oldSlots[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * A FilmFolio account. email is only loaded where it is displayed.
+ */
+public record User(int userId, String username, String email, String profilePicturePath) {
+}
@@ -0,0 +1,91 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * All SQL against the Users table.
+ */
+public final class UserRepository {
+
+    // Package-private: QueryPlanCheck runs the read queries through EXPLAIN PLAN.
+    static final String AUTHENTICATE_SQL =
+            "SELECT user_id, profile_picture_path FROM Users WHERE username = ? AND password_hash = ?";
+    static final String FIND_BY_ID_SQL =
+            "SELECT user_id, username, email, profile_picture_path FROM Users WHERE user_id = ?";
+    private static final String FIND_PICTURE_SQL =
+            "SELECT profile_picture_path FROM Users WHERE user_id = ?";
+    private static final String UPDATE_PICTURE_SQL =
+            "UPDATE Users SET profile_picture_path = ? WHERE user_id = ?";
+    private static final String ALL_PICTURES_SQL =
+            "SELECT DISTINCT profile_picture_path FROM Users WHERE profile_picture_path IS NOT NULL";
+    private static final String REGISTER_SQL =
+            "INSERT INTO Users (user_id, username, email, password_hash) VALUES (user_id_seq.NEXTVAL, ?, ?, ?)";
+
+    private UserRepository() {
+    }
+
+    /** Returns the matching user, or null if the username/password pair is wrong. */
+    public static User authenticate(String username, String password) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(AUTHENTICATE_SQL)) {
+            pstmt.setString(1, username);
+            pstmt.setString(2, password);
+            ResultSet rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            return new User(rs.getInt("user_id"), username, null, rs.getString("profile_picture_path"));
+        }
+    }
+
+    public static User findById(int userId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            return new User(rs.getInt("user_id"), rs.getString("username"), rs.getString("email"), rs.getString("profile_picture_path"));
+        }
+    }
+
+    public static String findProfilePicturePath(int userId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_PICTURE_SQL)) {
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getString("profile_picture_path") : null;
+        }
+    }
+
+    public static void updateProfilePicturePath(int userId, String path) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(UPDATE_PICTURE_SQL)) {
+            pstmt.setString(1, path);
+            pstmt.setInt(2, userId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /** Every profile picture path still referenced by some user; used to garbage collect picture files. */
+    public static Set<String> findAllProfilePicturePaths() throws SQLException {
+        Set<String> paths = new HashSet<>();
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(ALL_PICTURES_SQL)) {
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                paths.add(rs.getString(1));
+            }
+        }
+        return paths;
+    }
+
+    /** Creates an account. A duplicate username surfaces as an SQLException with error code 1. */
+    public static void register(String username, String email, String password) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(REGISTER_SQL)) {
+            pstmt.setString(1, username);
+            pstmt.setString(2, email);
+            pstmt.setString(3, password);
+            pstmt.executeUpdate();
+        }
+    }
+}
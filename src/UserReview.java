@@ -0,0 +1,5 @@
+/**
+ * A review as listed on the author's profile page.
+ */
+public record UserReview(String movieTitle, double rating, String reviewText) {
+}
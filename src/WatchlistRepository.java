@@ -0,0 +1,81 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All SQL against the Watchlist table.
+ */
+public final class WatchlistRepository {
+
+    // Package-private: QueryPlanCheck runs the read queries through EXPLAIN PLAN.
+    static final String FIND_BY_USER_SQL =
+            "SELECT m.movie_id, m.title, m.release_year, m.director, m.poster_link FROM Watchlist w JOIN Movies m ON w.movie_id = m.movie_id " +
+            "WHERE w.user_id = ? AND m.media_type = ? ORDER BY m.title";
+    static final String FIND_IDS_BY_USER_SQL =
+            "SELECT movie_id FROM Watchlist WHERE user_id = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO Watchlist (watchlist_id, user_id, movie_id) VALUES (watchlist_id_seq.NEXTVAL, ?, ?)";
+    static final String DELETE_SQL =
+            "DELETE FROM Watchlist WHERE user_id = ? AND movie_id = ?";
+
+    private WatchlistRepository() {
+    }
+
+    /** The user's watchlist for one media type. Ratings are not loaded for this view. */
+    public static List<MediaItem> findByUser(int userId, String mediaType) throws SQLException {
+        List<MediaItem> items = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_BY_USER_SQL)) {
+            pstmt.setInt(1, userId);
+            pstmt.setString(2, mediaType);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                items.add(new MediaItem(rs.getInt("movie_id"), rs.getString("title"), rs.getInt("release_year"),
+                        rs.getString("director"), null, rs.getString("poster_link")));
+            }
+        }
+        return items;
+    }
+
+    /** Ids of every title on the user's watchlist (all media types); read from the unique index alone. */
+    public static IntHashSet findIdsByUser(int userId) throws SQLException {
+        IntHashSet ids = new IntHashSet();
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(FIND_IDS_BY_USER_SQL)) {
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt("movie_id"));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Adds a title to the watchlist in one statement; returns false if it was already on it.
+     * The duplicate check is the uq_user_movie_watchlist constraint (ORA-00001), not a prior SELECT.
+     */
+    public static boolean add(int userId, int movieId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, movieId);
+            pstmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == 1) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /** Removes a title from the watchlist; returns false if it was not on it. */
+    public static boolean remove(int userId, int movieId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection(); PreparedStatement pstmt = conn.prepareStatement(DELETE_SQL)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, movieId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+}